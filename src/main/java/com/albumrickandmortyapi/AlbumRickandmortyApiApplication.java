@@ -1,13 +1,20 @@
 package com.albumrickandmortyapi;
 
+import com.albumrickandmortyapi.service.ConfiguracaoPacotes;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 // Esse enableFeignClients é necessário para habilitar o uso do Feign na aplicação Spring Boot
 @EnableFeignClients // Habilita o uso do Feign Clients na aplicação Spring Boot
+@EnableAsync(proxyTargetClass = true) // Habilita métodos @Async (ex: inicialização do catálogo de personagens fora da thread de subida); proxies por classe, como os do Spring Boot
+@EnableScheduling // Habilita tarefas agendadas (ex: atualização do catálogo de personagens em segundo plano)
+@EnableConfigurationProperties(ConfiguracaoPacotes.class) // Pesos do sorteio dos pacotes (album.pacotes.*)
 @SpringBootApplication // Anotação principal que indica que esta é uma aplicação Spring Boot
 public class AlbumRickandmortyApiApplication {
 
@@ -5,18 +5,48 @@ import com.albumrickandmortyapi.dto.RootCharacterResponseDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 //Essa interface serve para fazer chamadas à API externa do Rick and Morty, utilizando o FeignClient do Spring Cloud OpenFeign.
 // Sendo assim o objetivo dela é facilitar a comunicação com a API externa, abstraindo os detalhes das requisições HTTP.
+// A URL vem de rickandmorty.api.url (testes de carga apontam para um stub local no lugar da API real).
 
-@FeignClient(name = "rick-and-morty-api", url = "https://rickandmortyapi.com/api")
+@FeignClient(name = "rick-and-morty-api", url = "${rickandmorty.api.url:https://rickandmortyapi.com/api}")
 public interface RickAndMortyClient {
 
     // Retorna um personagem específico
     @GetMapping("/character/{id}")
     CharacterDTO buscarPersonagemPorId(@PathVariable("id") Long id);
 
+    // Retorna vários personagens em uma única chamada, com os IDs separados por vírgula (ex: "1,2,3")
+    // ATENÇÃO: quando recebe um único ID a API devolve um objeto e não uma lista, por isso prefira buscarPersonagensPorIds
+    @GetMapping("/character/{ids}")
+    List<CharacterDTO> buscarVariosPersonagens(@PathVariable("ids") String ids);
+
+    // Busca um lote de personagens com uma só requisição (IDs repetidos são enviados uma única vez)
+    default List<CharacterDTO> buscarPersonagensPorIds(Collection<Long> ids) {
+        List<Long> idsDistintos = ids.stream().distinct().toList();
+
+        if (idsDistintos.isEmpty()) {
+            return List.of();
+        }
+        if (idsDistintos.size() == 1) { // Um único ID: usa o endpoint simples, que devolve um objeto
+            return List.of(buscarPersonagemPorId(idsDistintos.get(0)));
+        }
+        return buscarVariosPersonagens(idsDistintos.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(",")));
+    }
+
     // Retorna a lista completa (usado para obter o total de personagens)
     @GetMapping("/character")
     RootCharacterResponseDTO buscarDadosGerais();
+
+    // Retorna uma página específica da listagem (usado para montar o catálogo completo em memória)
+    @GetMapping("/character")
+    RootCharacterResponseDTO buscarPaginaPersonagens(@RequestParam("page") int pagina);
 }
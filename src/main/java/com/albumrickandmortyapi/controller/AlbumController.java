@@ -1,14 +1,24 @@
 package com.albumrickandmortyapi.controller;
 
 import com.albumrickandmortyapi.dto.AlbumDetalhadoDTO;
+import com.albumrickandmortyapi.dto.FigurinhaDTO;
+import com.albumrickandmortyapi.dto.PaginaCursorDTO;
+import com.albumrickandmortyapi.dto.PosicaoRankingDTO;
 import com.albumrickandmortyapi.service.AlbumService;
+import com.albumrickandmortyapi.service.RankingColecionadoresService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 // Essa classe serve para gerenciar as requisições relacionadas aos álbuns de personagens do Rick and Morty.
 // Ela define endpoints para visualizar detalhes do álbum e calcular o progresso do álbum para um usuário específico
@@ -18,25 +28,59 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/albuns") // Rota base para os endpoints de álbuns
 public class AlbumController {
 
-    // Aqui faz a injeção de dependência do serviço de álbum
+    // Aqui faz a injeção de dependência do serviço de álbum e do ranking de colecionadores
     private final AlbumService albumService;
+    private final RankingColecionadoresService rankingColecionadores;
 
-    public AlbumController(AlbumService albumService) {
+    public AlbumController(AlbumService albumService, RankingColecionadoresService rankingColecionadores) {
         this.albumService = albumService;
+        this.rankingColecionadores = rankingColecionadores;
+    }
+
+    // Essa rota serve para listar os colecionadores com os álbuns mais completos (mais personagens distintos).
+    // O ranking fica em memória e é atualizado a cada alteração de álbum, então a consulta não lê o banco.
+    @Operation(description = "Listar os colecionadores com os álbuns mais completos", summary = "Retorna o ranking dos melhores colecionadores")
+    @ApiResponses(value = {
+            @ApiResponse (responseCode = "200", description = "Ranking retornado com sucesso")
+    })
+    @Parameter(name = "top", description = "Quantos colecionadores retornar (até 100)")
+    @GetMapping("/ranking")
+    public ResponseEntity<List<PosicaoRankingDTO>> listarRanking(@RequestParam(defaultValue = "10") int top) {
+        return ResponseEntity.ok(rankingColecionadores.listarTop(top));
+    }
+
+    // Essa rota serve para consultar a posição de um usuário específico no ranking de colecionadores.
+    @Operation(description = "Consultar a posição de um usuário no ranking de colecionadores", summary = "Retorna a posição do usuário no ranking")
+    @ApiResponses(value = {
+            @ApiResponse (responseCode = "200", description = "Posição retornada com sucesso"),
+            @ApiResponse (responseCode = "404", description = "Usuário sem álbum no ranking")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário cuja posição será consultada", required = true)
+    @GetMapping("/{usuarioId}/ranking")
+    public ResponseEntity<PosicaoRankingDTO> buscarPosicaoRanking(@PathVariable Long usuarioId) {
+        return rankingColecionadores.buscarPosicao(usuarioId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     // Essa rota serve para visualizar os detalhes do álbum de um usuário específico, passando o ID do usuário como parâmetro na URL.
     @Operation(description = "Visualizar detalhes do álbum de um usuário específico", summary = "Retorna os detalhes do álbum")
     @ApiResponses(value = {
             @ApiResponse (responseCode = "200", description = "Detalhes do álbum retornados com sucesso"),
+            @ApiResponse (responseCode = "304", description = "Álbum não mudou desde o ETag enviado em If-None-Match"),
             @ApiResponse (responseCode = "404", description = "Usuário ou álbum não encontrado")
     })
     @Parameter(name = "usuarioId", description = "ID do usuário cujo álbum será visualizado", required = true)
     @GetMapping("/{usuarioId}")
-    public ResponseEntity<AlbumDetalhadoDTO> visualizarAlbumDetalhado(@PathVariable Long usuarioId) {
+    public ResponseEntity<AlbumDetalhadoDTO> visualizarAlbumDetalhado(@PathVariable Long usuarioId, WebRequest request) {
         try {
+            // A versão é lida antes do conteúdo: se o álbum mudar no meio, o cliente só recebe o conteúdo de novo no próximo pedido
+            String etag = albumService.etagAlbum(usuarioId);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build(); // Nada mudou: as figurinhas nem são lidas
+            }
             AlbumDetalhadoDTO detalhes = albumService.buscarDetalhesAlbumSimples(usuarioId);
-            return ResponseEntity.ok(detalhes);
+            return ResponseEntity.ok().eTag(etag).body(detalhes);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -47,16 +91,93 @@ public class AlbumController {
     @Operation(description = "Calcular o progresso do álbum de um usuário específico", summary = "Retorna a porcentagem de progresso do álbum de um usuário")
     @ApiResponses(value = {
             @ApiResponse (responseCode = "200", description = "Progresso do álbum calculado com sucesso"),
+            @ApiResponse (responseCode = "304", description = "Progresso não mudou desde o ETag enviado em If-None-Match"),
             @ApiResponse (responseCode = "404", description = "Usuário ou álbum não encontrado")
     })
     @Parameter(name = "usuarioId", description = "ID do usuário cujo progresso do álbum será calculado", required = true)
     @GetMapping("/{usuarioId}/progresso")
-    public ResponseEntity<Double> getProgressoAlbum(@PathVariable Long usuarioId) {
+    public ResponseEntity<Double> getProgressoAlbum(@PathVariable Long usuarioId, WebRequest request) {
         try {
+            String etag = albumService.etagAlbum(usuarioId);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             double progresso = albumService.calcularPorcentagemCompleta(usuarioId);
-            return ResponseEntity.ok(progresso);
+            return ResponseEntity.ok().eTag(etag).body(progresso);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
+
+    // Essa rota serve para listar os IDs dos personagens que ainda faltam no álbum de um usuário específico.
+    @Operation(description = "Listar os personagens que ainda faltam no álbum de um usuário específico", summary = "Retorna os IDs dos personagens faltantes")
+    @ApiResponses(value = {
+            @ApiResponse (responseCode = "200", description = "Personagens faltantes retornados com sucesso"),
+            @ApiResponse (responseCode = "404", description = "Usuário ou álbum não encontrado")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário cujos personagens faltantes serão listados", required = true)
+    @GetMapping("/{usuarioId}/faltantes")
+    public ResponseEntity<List<Long>> listarPersonagensFaltantes(@PathVariable Long usuarioId) {
+        try {
+            return ResponseEntity.ok(albumService.listarPersonagensFaltantes(usuarioId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Essa rota serve para remover (descartar) uma figurinha do álbum de um usuário específico.
+    @Operation(description = "Remover uma figurinha do álbum de um usuário específico", summary = "Descarta uma figurinha do álbum")
+    @ApiResponses(value = {
+            @ApiResponse (responseCode = "204", description = "Figurinha removida com sucesso"),
+            @ApiResponse (responseCode = "400", description = "Erro ao remover a figurinha")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário dono do álbum", required = true)
+    @Parameter(name = "figurinhaId", description = "ID da figurinha a ser removida", required = true)
+    @DeleteMapping("/{usuarioId}/figurinhas/{figurinhaId}")
+    public ResponseEntity<Void> removerFigurinha(@PathVariable Long usuarioId, @PathVariable Long figurinhaId) {
+        try {
+            albumService.removerFigurinha(usuarioId, figurinhaId);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().header("Error-Message", e.getMessage()).build();
+        }
+    }
+
+    // Essa rota serve para listar as figurinhas do álbum de um usuário aos poucos, com paginação por cursor.
+    // Na primeira chamada não manda o aposId; nas próximas manda o proximoCursor que veio na resposta anterior.
+    @Operation(description = "Listar as figurinhas do álbum de um usuário com paginação por cursor", summary = "Retorna uma página de figurinhas do álbum")
+    @ApiResponses(value = {
+            @ApiResponse (responseCode = "200", description = "Página de figurinhas retornada com sucesso"),
+            @ApiResponse (responseCode = "404", description = "Usuário ou álbum não encontrado")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário dono do álbum", required = true)
+    @Parameter(name = "aposId", description = "Cursor: ID da última figurinha da página anterior")
+    @Parameter(name = "tamanho", description = "Quantidade de figurinhas por página (máximo 500)")
+    @GetMapping("/{usuarioId}/figurinhas")
+    public ResponseEntity<PaginaCursorDTO<FigurinhaDTO>> listarFigurinhas(@PathVariable Long usuarioId,
+                                                                          @RequestParam(defaultValue = "0") Long aposId,
+                                                                          @RequestParam(defaultValue = "50") int tamanho) {
+        try {
+            return ResponseEntity.ok(albumService.listarFigurinhas(usuarioId, aposId, tamanho));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Essa rota serve para exportar todas as figurinhas do álbum de uma vez, em NDJSON (um JSON por linha).
+    // As linhas são escritas conforme saem do banco, então coleções grandes não ocupam memória no servidor.
+    @Operation(description = "Exportar todas as figurinhas do álbum de um usuário em NDJSON", summary = "Transmite as figurinhas do álbum linha a linha")
+    @ApiResponses(value = {
+            @ApiResponse (responseCode = "200", description = "Figurinhas transmitidas com sucesso"),
+            @ApiResponse (responseCode = "404", description = "Usuário ou álbum não encontrado")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário dono do álbum", required = true)
+    @GetMapping(value = "/{usuarioId}/figurinhas/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportarFigurinhas(@PathVariable Long usuarioId) {
+        if (!albumService.existeAlbum(usuarioId)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody corpo = saida -> albumService.exportarFigurinhas(usuarioId, saida);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(corpo);
+    }
 }
\ No newline at end of file
@@ -31,11 +31,12 @@ public class PacoteController {
             @ApiResponse (responseCode = "400", description = "Erro ao abrir o pacote de figurinhas")
     })
     @Parameter(name = "usuarioId", description = "ID do usuário que está abrindo o pacote de figurinhas", required = true)
+    @Parameter(name = "quantidade", description = "Quantos pacotes abrir de uma vez (de 1 a 50)")
     @PostMapping("/abrir/{usuarioId}")
-    public ResponseEntity<List<FigurinhaDTO>> abrirPacote(@PathVariable Long usuarioId) {
+    public ResponseEntity<List<FigurinhaDTO>> abrirPacote(@PathVariable Long usuarioId, @RequestParam(defaultValue = "1") int quantidade) {
         // Aqui no try, é chamado o serviço para abrir o pacote e retornamos as figurinhas novas. Se não der certo, retorna um erro 400 com a mensagem de erro.
         try {
-            List<FigurinhaDTO> figurinhasNovas = albumService.abrirPacote(usuarioId);
+            List<FigurinhaDTO> figurinhasNovas = albumService.abrirPacotes(usuarioId, quantidade);
             return ResponseEntity.ok(figurinhasNovas);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().header("Error-Message", e.getMessage()).build();
@@ -1,7 +1,10 @@
 package com.albumrickandmortyapi.controller;
 
 import com.albumrickandmortyapi.dto.DetalheTrocaDTO;
+import com.albumrickandmortyapi.dto.PaginaCursorDTO;
 import com.albumrickandmortyapi.dto.PropostaTrocaDTO;
+import com.albumrickandmortyapi.dto.ResumoTrocaDTO;
+import com.albumrickandmortyapi.dto.SugestaoTrocaDTO;
 import com.albumrickandmortyapi.service.TrocaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +14,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestController // Indica que esta classe é um controller REST
 @Tag(name = "Trocas", description = "Endpoints para gerenciar trocas de figurinhas entre usuários") // Documentação Swagger
@@ -64,6 +70,83 @@ public class TrocaController {
         }
     }
 
+    // Esse endpoint serve para SUGERIR parceiros de troca: usuários com repetidas que faltam no álbum e que precisam das repetidas do usuário.
+    @Operation(description = "Sugerir parceiros de troca para um usuário, ordenados pelo número de trocas que completam os dois álbuns", summary = "Sugere parceiros de troca")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugestões retornadas com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário que procura parceiros", required = true)
+    @Parameter(name = "limite", description = "Quantidade máxima de sugestões (até 100)")
+    @GetMapping("/sugestoes/{usuarioId}")
+    public ResponseEntity<List<SugestaoTrocaDTO>> sugerirTrocas(@PathVariable Long usuarioId, @RequestParam(defaultValue = "10") int limite) {
+        try {
+            return ResponseEntity.ok(trocaService.sugerirTrocas(usuarioId, limite));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Esse endpoint serve para LISTAR as propostas RECEBIDAS por um usuário (caixa de entrada), filtradas por status e paginadas por cursor.
+    @Operation(description = "Listar as propostas de troca recebidas por um usuário, filtradas por status, com paginação por cursor", summary = "Caixa de entrada de trocas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de propostas retornada com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário que recebeu as propostas", required = true)
+    @Parameter(name = "status", description = "Status das propostas (PENDENTE, ACEITA, ...)")
+    @Parameter(name = "aposId", description = "Cursor: ID da última proposta da página anterior (0 para a primeira página)")
+    @Parameter(name = "tamanho", description = "Quantidade de propostas por página (até 500)")
+    @GetMapping("/recebidas/{usuarioId}")
+    public ResponseEntity<PaginaCursorDTO<ResumoTrocaDTO>> listarRecebidas(@PathVariable Long usuarioId,
+                                                                          @RequestParam(defaultValue = "PENDENTE") String status,
+                                                                          @RequestParam(defaultValue = "0") Long aposId,
+                                                                          @RequestParam(defaultValue = "50") int tamanho) {
+        try {
+            return ResponseEntity.ok(trocaService.listarRecebidas(usuarioId, status, aposId, tamanho));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Esse endpoint serve para LISTAR as propostas ENVIADAS por um usuário (caixa de saída), filtradas por status e paginadas por cursor.
+    @Operation(description = "Listar as propostas de troca enviadas por um usuário, filtradas por status, com paginação por cursor", summary = "Caixa de saída de trocas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de propostas retornada com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário que enviou as propostas", required = true)
+    @Parameter(name = "status", description = "Status das propostas (PENDENTE, ACEITA, ...)")
+    @Parameter(name = "aposId", description = "Cursor: ID da última proposta da página anterior (0 para a primeira página)")
+    @Parameter(name = "tamanho", description = "Quantidade de propostas por página (até 500)")
+    @GetMapping("/enviadas/{usuarioId}")
+    public ResponseEntity<PaginaCursorDTO<ResumoTrocaDTO>> listarEnviadas(@PathVariable Long usuarioId,
+                                                                         @RequestParam(defaultValue = "PENDENTE") String status,
+                                                                         @RequestParam(defaultValue = "0") Long aposId,
+                                                                         @RequestParam(defaultValue = "50") int tamanho) {
+        try {
+            return ResponseEntity.ok(trocaService.listarEnviadas(usuarioId, status, aposId, tamanho));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Esse endpoint serve para LISTAR todas as propostas de um usuário (enviadas e recebidas, qualquer status).
+    @Operation(description = "Listar todas as propostas de troca enviadas ou recebidas por um usuário", summary = "Lista as trocas de um usuário")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Propostas retornadas com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    @Parameter(name = "usuarioId", description = "ID do usuário", required = true)
+    @GetMapping("/usuario/{usuarioId}")
+    public ResponseEntity<List<DetalheTrocaDTO>> listarTrocasDoUsuario(@PathVariable Long usuarioId) {
+        try {
+            return ResponseEntity.ok(trocaService.listarTrocasDoUsuario(usuarioId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     // Esse endpoint serve para DELETAR uma troca proposta, passando o ID da proposta na URL.
     @Operation(description = "Deletar uma proposta de troca de figurinhas", summary = "Deleta uma proposta de troca existente")
     @ApiResponses(value = {
@@ -88,15 +171,21 @@ public class TrocaController {
     @Operation(description = "Buscar os detalhes de uma troca específica", summary = "Retorna os detalhes de uma proposta de troca")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Detalhes da troca retornados com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Proposta não mudou desde o ETag enviado em If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Proposta de troca não encontrada")
     })
     @Parameter(name = "propostaId", description = "ID da proposta de troca a ser buscada", required = true)
     @GetMapping("/{propostaId}")
-    public ResponseEntity<DetalheTrocaDTO> buscarTroca(@PathVariable Long propostaId) {
+    public ResponseEntity<DetalheTrocaDTO> buscarTroca(@PathVariable Long propostaId, WebRequest request) {
         try { // Aqui chama o serviço para buscar os detalhes da troca. Se encontrar, retorna 200 OK com os detalhes.
             // Caso não encontre ou ocorra algum erro, entra no catch e retorna 404 Not Found.
+            // Se o cliente mandar o ETag da última resposta e a proposta não tiver mudado, retorna 304 sem montar o detalhe.
+            String etag = trocaService.etagProposta(propostaId);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             DetalheTrocaDTO detalhes = trocaService.buscarDetalheTrocaPorId(propostaId);
-            return ResponseEntity.ok(detalhes);
+            return ResponseEntity.ok().eTag(etag).body(detalhes);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
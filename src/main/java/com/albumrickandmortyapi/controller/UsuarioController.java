@@ -1,5 +1,6 @@
 package com.albumrickandmortyapi.controller;
 
+import com.albumrickandmortyapi.dto.PaginaCursorDTO;
 import com.albumrickandmortyapi.dto.UsuarioDetalheDTO;
 import com.albumrickandmortyapi.dto.UsuarioDTO;
 import com.albumrickandmortyapi.dto.UsuarioListagemDTO;
@@ -10,8 +11,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -106,4 +109,37 @@ public class UsuarioController {
         }
         return ResponseEntity.ok(usuarios);
     }
-}
\ No newline at end of file
+
+    // Esse endpoint serve para LISTAR os usuários aos poucos, com paginação por cursor.
+    // Na primeira chamada não manda o aposId; nas próximas manda o proximoCursor que veio na resposta anterior.
+    @Operation(description = "Listar os usuários com paginação por cursor", summary = "Retorna uma página de usuários")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de usuários retornada com sucesso")
+    })
+    @Parameter(name = "aposId", description = "Cursor: ID do último usuário da página anterior")
+    @Parameter(name = "tamanho", description = "Quantidade de usuários por página (máximo 500)")
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaCursorDTO<UsuarioListagemDTO>> listarUsuariosPaginado(@RequestParam(defaultValue = "0") Long aposId,
+                                                                                      @RequestParam(defaultValue = "50") int tamanho) {
+        return ResponseEntity.ok(usuarioService.listarUsuarios(aposId, tamanho));
+    }
+
+    // Esse endpoint serve para EXPORTAR todos os usuários de uma vez, em NDJSON (um JSON por linha) ou CSV.
+    // As linhas são escritas conforme saem do banco, então muitos usuários não ocupam memória no servidor.
+    @Operation(description = "Exportar todos os usuários em NDJSON ou CSV", summary = "Transmite os usuários linha a linha")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Usuários transmitidos com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Formato de exportação inválido")
+    })
+    @Parameter(name = "formato", description = "Formato da exportação: ndjson (padrão) ou csv")
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios(@RequestParam(defaultValue = "ndjson") String formato) {
+        try {
+            UsuarioService.FormatoExportacao formatoExportacao = UsuarioService.FormatoExportacao.de(formato);
+            StreamingResponseBody corpo = saida -> usuarioService.exportarUsuarios(formatoExportacao, saida);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(formatoExportacao.getTipoConteudo())).body(corpo);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().header("Error-Message", e.getMessage()).build();
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.albumrickandmortyapi.dto;
 
 
-import com.albumrickandmortyapi.model.Figurinha;
 import lombok.Builder;
 import lombok.Data;
 import java.util.List;
@@ -15,8 +14,9 @@ public class AlbumDetalhadoDTO {
 
     private double progressoPercentual;
 
-    // Lista de todas as figurinhas que o usuário possui (incluindo repetidas, como na entidade Album)
-    private List<Figurinha> figurinhasBrutas;
+    // Uma entrada por pilha (personagem + raridade) do álbum. As repetidas não aparecem como entradas extras:
+    // elas são contadas no campo quantidade de cada pilha
+    private List<FigurinhaDTO> figurinhasBrutas;
 
     // Repetidas consolidadas: Mapeia o nome da figurinha para a contagem de duplicatas
     // Ex: {"Rick Sanchez - COMUM": 3, "Morty Smith - RARA": 1}
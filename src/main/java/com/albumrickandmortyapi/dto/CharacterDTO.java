@@ -1,5 +1,6 @@
 package com.albumrickandmortyapi.dto;
 
+import com.albumrickandmortyapi.model.Personagem;
 import lombok.Data;
 
 
@@ -10,4 +11,14 @@ public class CharacterDTO {
     private String name;
     private String status; // Usado para a logica de raridade, quando o personagem esta morto ou vivo, por exemplo.
     private String species;
+
+    // Aqui serve para converter um Personagem salvo no banco local no mesmo formato que vem da API
+    public static CharacterDTO fromEntity(Personagem personagem) {
+        CharacterDTO dto = new CharacterDTO();
+        dto.setId(personagem.getId());
+        dto.setName(personagem.getNome());
+        dto.setStatus(personagem.getStatus());
+        dto.setSpecies(personagem.getEspecie());
+        return dto;
+    }
 }
@@ -0,0 +1,19 @@
+package com.albumrickandmortyapi.dto;
+
+import com.albumrickandmortyapi.model.Raridade;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Esse DTO recebe as pilhas repetidas de um álbum: quantas cópias existem de cada personagem e raridade.
+@Data // Gera getters, setters, toString, equals e hashCode
+@AllArgsConstructor // Usado pela consulta JPQL (select new ...)
+public class ContagemFigurinhaDTO {
+    private String nomePersonagem;
+    private Raridade raridade;
+    private int quantidade;
+
+    // Chave usada no mapa de repetidas. Ex: "Rick Sanchez (COMUM)"
+    public String chave() {
+        return nomePersonagem + " (" + raridade + ")";
+    }
+}
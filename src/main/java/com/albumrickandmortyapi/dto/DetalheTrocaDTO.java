@@ -1,6 +1,8 @@
 package com.albumrickandmortyapi.dto;
 
 import com.albumrickandmortyapi.model.PropostaTroca;
+import com.albumrickandmortyapi.model.Raridade;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,6 +10,7 @@ import lombok.Data;
 // Esse DTO serve para transferir dados detalhados de uma proposta de troca entre usuários.
 @Data // Gera getters, setters, toString, equals e hashCode
 @Builder // Facilita a construção de objetos dessa classe
+@AllArgsConstructor // Construtor com todos os campos (usado pelo builder)
 public class DetalheTrocaDTO {
     private Long id;
     private String status;
@@ -29,6 +32,15 @@ public class DetalheTrocaDTO {
     private String nomeFigurinhaDesejada;
     private String raridadeDesejada; // Adicionei a raridade para mais contexto
 
+    // Construtor usado pelas consultas JPQL (select new ...), que montam o DTO com os joins em uma consulta só
+    public DetalheTrocaDTO(Long id, String status, Long idOfertante, String nomeOfertante, Long idReceptor, String nomeReceptor,
+                           Long idFigurinhaOferecida, String nomeFigurinhaOferecida, Raridade raridadeOferecida,
+                           Long idFigurinhaDesejada, String nomeFigurinhaDesejada, Raridade raridadeDesejada) {
+        this(id, status, idOfertante, nomeOfertante, idReceptor, nomeReceptor,
+                idFigurinhaOferecida, nomeFigurinhaOferecida, raridadeOferecida.toString(),
+                idFigurinhaDesejada, nomeFigurinhaDesejada, raridadeDesejada.toString());
+    }
+
     // Construtor estático para mapeamento da entidade
     // Aqui serve para converter uma entidade PropostaTroca em um DetalheTrocaDTO
     public static DetalheTrocaDTO fromEntity(PropostaTroca proposta) {
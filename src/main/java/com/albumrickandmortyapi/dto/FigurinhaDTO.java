@@ -1,12 +1,15 @@
 package com.albumrickandmortyapi.dto;
 
 import com.albumrickandmortyapi.model.Figurinha;
+import com.albumrickandmortyapi.model.Raridade;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 // Esse DTO serve para transferir dados de figurinhas do álbum.
 @Data // Essa anotação do Lombok gera automaticamente os getters, setters, toString, equals e hashCode
 @Builder // Esse builder serve para facilitar a construção de objetos dessa classe, permitindo a criação de instâncias de forma mais legível e flexível.
+@AllArgsConstructor // Construtor com todos os campos (usado pelo builder)
 public class FigurinhaDTO {
 
 
@@ -14,6 +17,12 @@ public class FigurinhaDTO {
     private Long idPersonagemApi;
     private String nomePersonagem;
     private String raridade;
+    private int quantidade; // Quantas cópias dessa figurinha o álbum tem
+
+    // Construtor usado pelas consultas JPQL (select new ...), que montam o DTO direto do banco sem carregar a entidade
+    public FigurinhaDTO(Long idFigurinha, Long idPersonagemApi, String nomePersonagem, Raridade raridade, int quantidade) {
+        this(idFigurinha, idPersonagemApi, nomePersonagem, raridade.toString(), quantidade);
+    }
 
     // Aqui serve para converter uma entidade Figurinha em um FigurinhaDTO
     public static FigurinhaDTO fromEntity(Figurinha figurinha) {
@@ -24,6 +33,7 @@ public class FigurinhaDTO {
 
                 // **CORREÇÃO AQUI:** Chama .toString() no Enum
                 .raridade(figurinha.getRaridade().toString())
+                .quantidade(figurinha.getQuantidade())
 
                 .build();
     }
@@ -0,0 +1,23 @@
+package com.albumrickandmortyapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Esse DTO serve para devolver uma página de resultados com paginação por cursor (keyset).
+// Para buscar a próxima página, o cliente manda o proximoCursor de volta; quando ele vem null, acabou.
+@Data // Gera getters, setters, toString, equals e hashCode
+@AllArgsConstructor // Gera um construtor com todos os argumentos
+public class PaginaCursorDTO<T> {
+
+    private List<T> itens;
+    private Long proximoCursor; // ID do último item da página (null quando não há mais páginas)
+
+    // Monta a página: se veio a quantidade pedida, pode haver mais itens depois do último
+    public static <T> PaginaCursorDTO<T> de(List<T> itens, int tamanho, Function<T, Long> cursor) {
+        Long proximoCursor = itens.size() == tamanho ? cursor.apply(itens.get(itens.size() - 1)) : null;
+        return new PaginaCursorDTO<>(itens, proximoCursor);
+    }
+}
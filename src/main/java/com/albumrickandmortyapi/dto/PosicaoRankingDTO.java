@@ -0,0 +1,16 @@
+package com.albumrickandmortyapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+// Esse DTO representa a posição de um colecionador no ranking de álbuns mais completos.
+// Empates dividem a mesma posição (dois álbuns com o mesmo número de personagens ficam, por exemplo, ambos em 3º).
+@Data // Essa anotação do Lombok gera automaticamente os getters, setters, toString, equals e hashCode
+@Builder // Facilita a construção do DTO
+public class PosicaoRankingDTO {
+
+    private int posicao; // 1 = álbum mais completo
+    private Long usuarioId;
+    private int personagensDistintos; // Personagens diferentes que o álbum possui
+    private double progressoPercentual; // Personagens distintos em relação ao catálogo, com até 2 casas decimais
+}
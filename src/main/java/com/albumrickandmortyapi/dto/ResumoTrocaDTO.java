@@ -0,0 +1,28 @@
+package com.albumrickandmortyapi.dto;
+
+import com.albumrickandmortyapi.model.Raridade;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Esse DTO é o resumo de uma proposta de troca usado nas listagens (caixa de entrada e de saída).
+// É montado direto pela consulta JPQL (select new ...), com os nomes já trazidos pelos joins, sem carregar as entidades.
+@Data // Gera getters, setters, toString, equals e hashCode
+@AllArgsConstructor // Construtor usado pela consulta JPQL
+public class ResumoTrocaDTO {
+    private Long id;
+    private String status;
+
+    private Long idOfertante;
+    private String nomeOfertante;
+
+    private Long idReceptor;
+    private String nomeReceptor;
+
+    private Long idFigurinhaOferecida;
+    private String nomeFigurinhaOferecida;
+    private Raridade raridadeOferecida;
+
+    private Long idFigurinhaDesejada;
+    private String nomeFigurinhaDesejada;
+    private Raridade raridadeDesejada;
+}
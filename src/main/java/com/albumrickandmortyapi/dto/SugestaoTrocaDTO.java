@@ -0,0 +1,24 @@
+package com.albumrickandmortyapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+// Esse DTO representa um parceiro sugerido para troca: o outro usuário tem repetidas de personagens que faltam
+// no álbum de quem pediu a sugestão, e quem pediu tem repetidas de personagens que faltam no álbum dele.
+@Data // Essa anotação do Lombok gera automaticamente os getters, setters, toString, equals e hashCode
+@Builder // Esse builder serve para facilitar a construção de objetos dessa classe, permitindo a criação de instâncias de forma mais legível e flexível.
+public class SugestaoTrocaDTO {
+
+    private Long usuarioId; // O parceiro sugerido
+
+    // Quantas trocas 1 por 1 completam os dois álbuns ao mesmo tempo (o menor dos dois lados)
+    private int trocasPossiveis;
+
+    // IDs dos personagens que o parceiro pode dar (repetidos dele, faltando no seu álbum)
+    private List<Long> personagensQueRecebe;
+
+    // IDs dos personagens que você pode dar (repetidos seus, faltando no álbum dele)
+    private List<Long> personagensQueOferece;
+}
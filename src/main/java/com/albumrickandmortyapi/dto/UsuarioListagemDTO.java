@@ -1,11 +1,13 @@
 package com.albumrickandmortyapi.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 // Esse DTO serve para transferir dados básicos do usuário, incluindo o ID do álbum associado.
 @Data // Gera getters e setters automaticamente
 @NoArgsConstructor // Gera um construtor sem argumentos
+@AllArgsConstructor // Usado pelas consultas do repositório, que montam o DTO direto no banco (select new ...)
 public class UsuarioListagemDTO {
 
     private Long id;
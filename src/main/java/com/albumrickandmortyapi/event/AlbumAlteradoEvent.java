@@ -0,0 +1,13 @@
+package com.albumrickandmortyapi.event;
+
+import java.util.List;
+
+// Evento publicado quando o inventário de um ou mais álbuns muda (álbum criado ou excluído, pacote aberto, troca aceita, figurinha removida).
+// Carrega os IDs dos usuários donos dos álbuns alterados. Depois do commit, o PipelineEventos entrega os IDs em lotes
+// a cada ConsumidorAlbunsAlterados, fora da thread da requisição, e cada um relê o que precisar.
+public record AlbumAlteradoEvent(List<Long> usuarioIds) {
+
+    public static AlbumAlteradoEvent de(Long... usuarioIds) {
+        return new AlbumAlteradoEvent(List.of(usuarioIds));
+    }
+}
@@ -0,0 +1,17 @@
+package com.albumrickandmortyapi.event;
+
+import java.util.Collection;
+
+// Quem mantém alguma visão derivada dos álbuns (índice de trocas, ranking, estatísticas, notificações...) implementa esta interface
+// e recebe os eventos de alteração pelo PipelineEventos: em lotes, numa thread só dele, depois do commit.
+public interface ConsumidorAlbunsAlterados {
+
+    // Nome curto usado na thread e na tag "consumidor" das métricas album.eventos.*
+    String nome();
+
+    // Relê os álbuns dos usuários informados (os IDs de todos os eventos do lote, sem repetição)
+    void atualizar(Collection<Long> usuarioIds);
+
+    // Recarrega tudo do banco. Chamado quando a fila encheu e algum evento foi descartado
+    void reconstruir();
+}
@@ -0,0 +1,193 @@
+package com.albumrickandmortyapi.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Essa classe tira do caminho da requisição o trabalho feito depois de uma alteração de álbum (pacote aberto, troca aceita...).
+// Depois do commit, o evento só entra numa fila limitada de cada consumidor; uma thread por consumidor esvazia a fila em lotes
+// e junta os usuários repetidos, então um usuário que abre 10 pacotes seguidos é relido uma vez só.
+// Se a fila enche, a requisição não espera: o evento é descartado, contado, e o consumidor é reconstruído quando a fila esvaziar.
+// Métricas (tag "consumidor"): album.eventos.fila (ocupação), album.eventos.descartados (pressão), album.eventos.atraso
+// (do commit até o lote começar a ser processado), album.eventos.lote (eventos por lote) e album.eventos.processamento
+@Component // Anotação para marcar esta classe como um componente do Spring
+public class PipelineEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineEventos.class);
+
+    private static final long ESPERA_POLL_MS = 100; // De quanto em quanto tempo a thread parada confere se precisa reconstruir ou parar
+    private static final long ESPERA_PARADA_MS = 5000; // Quanto tempo o desligamento espera as filas esvaziarem
+
+    private final List<Fila> filas = new ArrayList<>();
+    private volatile boolean ativo = true;
+
+    // Construtor para injeção de dependências
+    public PipelineEventos(List<ConsumidorAlbunsAlterados> consumidores, MeterRegistry registry,
+                           @Value("${album.eventos.capacidade-fila:10000}") int capacidade,
+                           @Value("${album.eventos.tamanho-lote:500}") int tamanhoLote) {
+        consumidores.forEach(consumidor -> filas.add(new Fila(consumidor, registry, capacidade, tamanhoLote)));
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        filas.forEach(fila -> fila.thread.start());
+    }
+
+    // No desligamento, cada thread termina de esvaziar a sua fila (até 5s); o que ficar para trás a reconstrução da subida corrige
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        ativo = false;
+        for (Fila fila : filas) {
+            fila.thread.join(ESPERA_PARADA_MS);
+        }
+    }
+
+
+    // --- Publicação ---
+    // Roda na thread da requisição, depois do commit: só enfileira (nenhuma consulta, nenhum lock além do da fila)
+    @TransactionalEventListener
+    public void aoAlterarAlbum(AlbumAlteradoEvent evento) {
+        EventoPublicado publicado = new EventoPublicado(evento.usuarioIds(), System.nanoTime());
+        filas.forEach(fila -> fila.publicar(publicado));
+    }
+
+    // Nenhum evento na fila nem em processamento (usado pelos testes para esperar o trabalho assíncrono)
+    public boolean estaOcioso() {
+        return filas.stream().allMatch(fila -> fila.pendentes.get() == 0);
+    }
+
+
+    // Um evento na fila, com o instante em que foi publicado (para medir o atraso)
+    private record EventoPublicado(List<Long> usuarioIds, long publicadoEm) {
+    }
+
+    // Fila limitada e thread de um consumidor: um consumidor lento não atrasa os outros
+    private final class Fila {
+
+        private final ConsumidorAlbunsAlterados consumidor;
+        private final ArrayBlockingQueue<EventoPublicado> fila;
+        private final int tamanhoLote;
+        private final Thread thread;
+
+        private final AtomicLong pendentes = new AtomicLong(); // Na fila + no lote em processamento
+        private final AtomicBoolean reconstrucaoPendente = new AtomicBoolean();
+
+        // --- Métricas ---
+        private final Counter descartados;
+        private final Timer atraso;
+        private final Timer processamento;
+        private final DistributionSummary lotes;
+
+        Fila(ConsumidorAlbunsAlterados consumidor, MeterRegistry registry, int capacidade, int tamanhoLote) {
+            this.consumidor = consumidor;
+            this.fila = new ArrayBlockingQueue<>(capacidade);
+            this.tamanhoLote = tamanhoLote;
+            this.thread = Thread.ofPlatform().name("eventos-" + consumidor.nome()).daemon(true).unstarted(this::consumir);
+
+            String tag = consumidor.nome();
+            Gauge.builder("album.eventos.fila", fila, ArrayBlockingQueue::size)
+                    .description("Eventos de álbum esperando o consumidor")
+                    .tag("consumidor", tag)
+                    .register(registry);
+            Gauge.builder("album.eventos.fila.capacidade", () -> capacidade)
+                    .description("Tamanho máximo da fila do consumidor")
+                    .tag("consumidor", tag)
+                    .register(registry);
+            this.descartados = Counter.builder("album.eventos.descartados")
+                    .description("Eventos descartados com a fila cheia (o consumidor é reconstruído depois)")
+                    .tag("consumidor", tag)
+                    .register(registry);
+            this.atraso = Timer.builder("album.eventos.atraso")
+                    .description("Tempo entre o commit e o início do processamento do evento mais antigo do lote")
+                    .tag("consumidor", tag)
+                    .register(registry);
+            this.processamento = Timer.builder("album.eventos.processamento")
+                    .description("Tempo para o consumidor processar um lote")
+                    .tag("consumidor", tag)
+                    .register(registry);
+            this.lotes = DistributionSummary.builder("album.eventos.lote")
+                    .description("Eventos por lote processado")
+                    .tag("consumidor", tag)
+                    .register(registry);
+        }
+
+        void publicar(EventoPublicado evento) {
+            pendentes.incrementAndGet(); // Antes do offer: o evento nunca fica na fila sem ser contado
+            if (!fila.offer(evento)) {
+                pendentes.decrementAndGet();
+                descartados.increment();
+                reconstrucaoPendente.set(true);
+            }
+        }
+
+        private void consumir() {
+            List<EventoPublicado> lote = new ArrayList<>(tamanhoLote);
+            while (true) {
+                EventoPublicado primeiro;
+                try {
+                    primeiro = fila.poll(ESPERA_POLL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (primeiro == null) {
+                    if (!ativo) {
+                        return;
+                    }
+                } else {
+                    lote.add(primeiro);
+                    fila.drainTo(lote, tamanhoLote - 1);
+                    processar(lote);
+                    lote.clear();
+                }
+
+                // Só depois que a fila esvaziou: reconstruir antes faria os eventos que ficaram na fila serem relidos à toa
+                if (fila.isEmpty() && reconstrucaoPendente.compareAndSet(true, false)) {
+                    reconstruir();
+                }
+            }
+        }
+
+        private void processar(List<EventoPublicado> lote) {
+            atraso.record(System.nanoTime() - lote.get(0).publicadoEm(), TimeUnit.NANOSECONDS);
+            lotes.record(lote.size());
+
+            Set<Long> usuarioIds = new LinkedHashSet<>();
+            lote.forEach(evento -> usuarioIds.addAll(evento.usuarioIds()));
+            try {
+                processamento.record(() -> consumidor.atualizar(usuarioIds));
+            } catch (Exception e) {
+                // A alteração já foi gravada; a visão do consumidor fica para trás até a próxima alteração ou reconstrução
+                log.warn("Erro ao processar eventos de álbum ({}): {}", consumidor.nome(), e.getMessage());
+            } finally {
+                pendentes.addAndGet(-lote.size());
+            }
+        }
+
+        private void reconstruir() {
+            try {
+                consumidor.reconstruir();
+            } catch (Exception e) {
+                log.warn("Erro ao reconstruir {} depois de descartar eventos: {}", consumidor.nome(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.albumrickandmortyapi.health;
+
+import com.albumrickandmortyapi.service.CatalogoPersonagensService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Esse health indicator informa se o catálogo de personagens já foi carregado.
+// Ele faz parte do grupo de readiness (/actuator/health/readiness), então o balanceador só manda tráfego
+// para esta instância depois que os pacotes já podem ser abertos.
+@Component("catalogo") // O nome do bean vira o nome do indicador no /actuator/health
+public class CatalogoHealthIndicator implements HealthIndicator {
+
+    private final CatalogoPersonagensService catalogoPersonagens;
+
+    public CatalogoHealthIndicator(CatalogoPersonagensService catalogoPersonagens) {
+        this.catalogoPersonagens = catalogoPersonagens;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = catalogoPersonagens.isPronto() ? Health.up() : Health.outOfService();
+        return builder.withDetail("totalPersonagens", catalogoPersonagens.getTotalPersonagens()).build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.albumrickandmortyapi.metricas;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+// Conta os comandos SQL executados pela thread atual e o tempo gasto no banco.
+// O OrcamentoSqlFilter abre uma contagem no início de cada requisição; fora de uma requisição (tarefas agendadas,
+// eventos assíncronos) não há contagem aberta e os comandos são ignorados.
+// Um lote JDBC (executeBatch) conta como um comando: é uma ida ao banco.
+public class ContadorSql implements QueryExecutionListener {
+
+    private static final ThreadLocal<Contagem> ATUAL = new ThreadLocal<>();
+
+    // Comandos e tempo de uma requisição
+    public static final class Contagem {
+        private int comandos;
+        private long nanos;
+        private long inicioComando;
+
+        public int getComandos() {
+            return comandos;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    public static Contagem iniciar() {
+        Contagem contagem = new Contagem();
+        ATUAL.set(contagem);
+        return contagem;
+    }
+
+    public static void encerrar() {
+        ATUAL.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Contagem contagem = ATUAL.get();
+        if (contagem != null) {
+            contagem.inicioComando = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Contagem contagem = ATUAL.get();
+        if (contagem != null) {
+            contagem.comandos++;
+            contagem.nanos += System.nanoTime() - contagem.inicioComando;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.albumrickandmortyapi.metricas;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// Envolve o DataSource da aplicação num proxy que avisa o ContadorSql a cada comando executado.
+// JPA, JdbcTemplate e tudo mais que usa o DataSource passam pelo proxy.
+@Configuration // Indica que esta classe fornece beans para o Spring
+public class ContadorSqlConfig {
+
+    @Bean
+    public static BeanPostProcessor proxyContadorSql() { // static: BeanPostProcessors precisam existir antes dos outros beans
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new ContadorSql())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
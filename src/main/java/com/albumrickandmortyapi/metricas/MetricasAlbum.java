@@ -0,0 +1,73 @@
+package com.albumrickandmortyapi.metricas;
+
+import com.albumrickandmortyapi.model.Raridade;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Essa classe concentra as métricas de negócio do álbum (expostas em /actuator/prometheus).
+// Todos os timers usam a tag "outcome" (SUCCESS ou ERROR) e as figurinhas usam a tag "rarity", iguais em todas as métricas,
+// para que os painéis de latência e de SLO possam filtrar e agrupar do mesmo jeito.
+@Component // Anotação para marcar esta classe como um componente do Spring
+public class MetricasAlbum {
+
+    // --- Nomes das métricas ---
+    public static final String ABERTURA_PACOTES = "album.pacotes.abertura";
+    public static final String PROPOSTA_TROCA = "album.trocas.proposta";
+    public static final String ACEITE_TROCA = "album.trocas.aceite";
+    public static final String FIGURINHAS_SORTEADAS = "album.figurinhas.sorteadas";
+    public static final String CONFLITOS_ACEITE = "album.trocas.aceite.conflitos";
+    public static final String CONFLITOS_ALBUM = "album.pacotes.conflitos";
+
+    private final MeterRegistry registry;
+    private final Map<Raridade, Counter> figurinhasPorRaridade = new EnumMap<>(Raridade.class);
+    private final Counter conflitosAceite;
+    private final Counter conflitosAlbum;
+
+    // Construtor para injeção de dependências
+    public MetricasAlbum(MeterRegistry registry) {
+        this.registry = registry;
+        for (Raridade raridade : Raridade.values()) {
+            figurinhasPorRaridade.put(raridade, Counter.builder(FIGURINHAS_SORTEADAS)
+                    .description("Figurinhas sorteadas nos pacotes abertos")
+                    .tag("rarity", raridade.name())
+                    .register(registry));
+        }
+        this.conflitosAceite = Counter.builder(CONFLITOS_ACEITE)
+                .description("Tentativas de aceite refeitas por conflito com outra transação")
+                .register(registry);
+        this.conflitosAlbum = Counter.builder(CONFLITOS_ALBUM)
+                .description("Aberturas de pacote e descartes refeitos por conflito com outra transação no mesmo álbum")
+                .register(registry);
+    }
+
+    // Mede a operação no timer informado, com outcome SUCCESS quando ela termina e ERROR quando lança exceção
+    public <T> T medir(String nome, Supplier<T> operacao) {
+        Timer.Sample amostra = Timer.start(registry);
+        String outcome = "ERROR";
+        try {
+            T resultado = operacao.get();
+            outcome = "SUCCESS";
+            return resultado;
+        } finally {
+            amostra.stop(Timer.builder(nome).tag("outcome", outcome).register(registry));
+        }
+    }
+
+    public void contarFigurinha(Raridade raridade) {
+        figurinhasPorRaridade.get(raridade).increment();
+    }
+
+    public void contarConflitoAceite() {
+        conflitosAceite.increment();
+    }
+
+    public void contarConflitoAlbum() {
+        conflitosAlbum.increment();
+    }
+}
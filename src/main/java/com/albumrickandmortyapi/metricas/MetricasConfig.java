@@ -0,0 +1,36 @@
+package com.albumrickandmortyapi.metricas;
+
+import feign.Response;
+import feign.micrometer.FeignContext;
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.ObservationFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Configuração das métricas das chamadas à API do Rick and Morty (Feign, métrica http.client.requests)
+@Configuration // Indica que esta classe fornece beans para o Spring
+public class MetricasConfig {
+
+    // O Feign marca as chamadas com status e erro, mas sem "outcome": esse filtro adiciona a mesma tag usada nas métricas do álbum
+    // (SUCCESS, CLIENT_ERROR, SERVER_ERROR ou UNKNOWN quando não houve resposta, ex: timeout)
+    @Bean
+    public ObservationFilter outcomeChamadasFeign() {
+        return contexto -> {
+            if (contexto instanceof FeignContext feign) {
+                contexto.addLowCardinalityKeyValue(KeyValue.of("outcome", outcome(feign.getResponse())));
+            }
+            return contexto;
+        };
+    }
+
+    private static String outcome(Response resposta) {
+        if (resposta == null) {
+            return "UNKNOWN";
+        }
+        int status = resposta.status();
+        if (status >= 200 && status < 400) {
+            return "SUCCESS";
+        }
+        return status < 500 ? "CLIENT_ERROR" : "SERVER_ERROR";
+    }
+}
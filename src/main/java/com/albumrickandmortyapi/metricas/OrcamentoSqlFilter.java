@@ -0,0 +1,131 @@
+package com.albumrickandmortyapi.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+// Conta os comandos SQL de cada requisição e o tempo gasto no banco:
+// - cabeçalhos X-Sql-Statements e X-Sql-Time-Ms na resposta
+// - métricas album.sql.comandos e album.sql.tempo por endpoint (tags method e uri)
+// - aviso no log quando a requisição passa do orçamento de comandos (album.sql.orcamento-por-requisicao)
+// Respostas em streaming (ex: exportação NDJSON) só contam o que foi executado antes do corpo começar a ser escrito.
+@Component // Anotação para marcar esta classe como um componente do Spring (registrado como filtro HTTP)
+public class OrcamentoSqlFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(OrcamentoSqlFilter.class);
+
+    public static final String CABECALHO_COMANDOS = "X-Sql-Statements";
+    public static final String CABECALHO_TEMPO = "X-Sql-Time-Ms";
+
+    private final MeterRegistry registry;
+    private final int orcamento;
+
+    // Construtor para injeção de dependências
+    public OrcamentoSqlFilter(MeterRegistry registry, @Value("${album.sql.orcamento-por-requisicao:20}") int orcamento) {
+        this.registry = registry;
+        this.orcamento = orcamento;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ContadorSql.Contagem contagem = ContadorSql.iniciar();
+        RespostaComContagem resposta = new RespostaComContagem(response, contagem);
+        try {
+            filterChain.doFilter(request, resposta);
+        } finally {
+            ContadorSql.encerrar();
+            resposta.escreverCabecalhos(); // Respostas sem corpo (ex: 204, 400 com Error-Message)
+            registrar(request, contagem);
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContadorSql.Contagem contagem) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = padrao != null ? padrao.toString() : "UNKNOWN"; // Sempre o padrão da rota, nunca a URL com IDs
+        String metodo = request.getMethod();
+
+        DistributionSummary.builder("album.sql.comandos")
+                .description("Comandos SQL executados por requisição")
+                .tag("method", metodo)
+                .tag("uri", uri)
+                .register(registry)
+                .record(contagem.getComandos());
+        Timer.builder("album.sql.tempo")
+                .description("Tempo gasto no banco por requisição")
+                .tag("method", metodo)
+                .tag("uri", uri)
+                .register(registry)
+                .record(contagem.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (contagem.getComandos() > orcamento) {
+            log.warn("Orçamento de SQL excedido: {} {} executou {} comandos (limite {}, {} ms no banco)",
+                    metodo, uri, contagem.getComandos(), orcamento, TimeUnit.NANOSECONDS.toMillis(contagem.getNanos()));
+        }
+    }
+
+    // Os cabeçalhos precisam entrar antes da resposta ser enviada: são escritos quando o corpo começa (ou no fim, se não houver corpo)
+    private static final class RespostaComContagem extends HttpServletResponseWrapper {
+
+        private final ContadorSql.Contagem contagem;
+        private boolean cabecalhosEscritos;
+
+        RespostaComContagem(HttpServletResponse response, ContadorSql.Contagem contagem) {
+            super(response);
+            this.contagem = contagem;
+        }
+
+        void escreverCabecalhos() {
+            if (!cabecalhosEscritos && !isCommitted()) {
+                setHeader(CABECALHO_COMANDOS, String.valueOf(contagem.getComandos()));
+                setHeader(CABECALHO_TEMPO, String.valueOf(TimeUnit.NANOSECONDS.toMillis(contagem.getNanos())));
+            }
+            cabecalhosEscritos = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            escreverCabecalhos();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            escreverCabecalhos();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            escreverCabecalhos();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            escreverCabecalhos();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            escreverCabecalhos();
+            super.sendError(sc, msg);
+        }
+    }
+}
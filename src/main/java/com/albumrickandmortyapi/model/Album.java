@@ -6,8 +6,12 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 
@@ -16,6 +20,8 @@ import java.util.List;
 @NoArgsConstructor // Gera um construtor sem argumentos
 @AllArgsConstructor // Gera um construtor com todos os argumentos
 @Table(name = "albums") // Especifica o nome da tabela no banco de dados para essa entidade.
+@Cacheable // A linha do álbum (sem a lista de figurinhas, que não é cacheada) fica no cache de segundo nível
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "albuns") // Cada escrita atualiza o cache no commit
 public class Album {
 
     @Id // Indica que esse campo é a chave primária da entidade.
@@ -31,4 +37,34 @@ public class Album {
     @OneToMany(mappedBy = "album", cascade = CascadeType.ALL, orphanRemoval = true) // Define um relacionamento um-para-muitos entre Album e Figurinha.
     @JsonManagedReference("album-figurinhas") // Evita referência cíclica durante a serialização JSON.
     private List<Figurinha> figurinhas = new ArrayList<>(); // Lista de figurinhas associadas ao álbum.
+
+    // Quantidade de personagens diferentes no álbum, mantida a cada pacote aberto e troca aceita.
+    // Assim o progresso é uma leitura de uma única linha, sem percorrer as figurinhas.
+    @Column(nullable = false)
+    private int personagensDistintos;
+
+    // Bitmap dos personagens que o álbum possui: o bit N fica ligado quando o álbum tem o personagem de ID N.
+    // Para 826 personagens ocupa uns 104 bytes, e comparações entre álbuns viram operações de bits.
+    @Column(length = 1024) // Cabe até 8192 personagens
+    private byte[] personagensPossuidos;
+
+    // Momento da última alteração no conteúdo do álbum (pacote aberto, troca aceita).
+    // Como ele muda em toda alteração, o álbum sempre é gravado com checagem de versão.
+    private LocalDateTime ultimaAlteracao;
+
+    @Version // Controle de concorrência otimista: duas alterações simultâneas no mesmo álbum não sobrescrevem uma à outra
+    @Column(nullable = false)
+    private long versao;
+
+    // Lê o bitmap gravado como um BitSet (álbum sem bitmap ainda = nenhum personagem)
+    public BitSet bitmapPersonagens() {
+        return personagensPossuidos == null ? new BitSet() : BitSet.valueOf(personagensPossuidos);
+    }
+
+    // Grava o bitmap e mantém o contador de personagens distintos igual ao número de bits ligados
+    public void atualizarBitmapPersonagens(BitSet bitmap) {
+        this.personagensPossuidos = bitmap.toByteArray();
+        this.personagensDistintos = bitmap.cardinality();
+        this.ultimaAlteracao = LocalDateTime.now(); // Garante que o álbum é gravado com checagem de versão (@Version)
+    }
 }
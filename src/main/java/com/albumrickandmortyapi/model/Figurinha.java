@@ -5,15 +5,20 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity // Indica que essa classe é uma entidade JPA que será mapeada para uma tabela no banco de dados.
 @Data// Gera automaticamente os getters, setters, toString, equals e hashCode
 @NoArgsConstructor //  Gera um construtor sem argumentos
 @AllArgsConstructor // Gera um construtor com todos os argumentos
-@Table(name = "figurinhas") // Especifica o nome da tabela no banco de dados para essa entidade.
+// Cada linha é uma "pilha": um personagem com uma raridade dentro de um álbum, com a quantidade de cópias.
+// Por isso a combinação álbum + personagem + raridade é única.
+@Table(name = "figurinhas", // Especifica o nome da tabela no banco de dados para essa entidade.
+        uniqueConstraints = @UniqueConstraint(name = "uk_figurinhas_album_personagem_raridade", columnNames = {"album_id", "id_personagem_api", "raridade"}))
 public class Figurinha {
 
     @Id // Indica que esse campo é a chave primária da entidade.
+    // IDENTITY: as pilhas novas dos pacotes são inseridas em lote direto pelo JDBC (AlbumService), que lê os IDs gerados
     @GeneratedValue(strategy = GenerationType.IDENTITY) // Especifica que o valor da chave primária será gerado automaticamente pelo banco de dados.
     private Long id; // Campo que representa o ID único da figurinha.
 
@@ -27,6 +32,16 @@ public class Figurinha {
     @Enumerated(EnumType.STRING)
     private Raridade raridade;
 
+    // Quantas cópias dessa figurinha o álbum tem. Uma pilha com 0 continua existindo (propostas antigas apontam para ela),
+    // mas o álbum não possui mais o personagem nessa raridade.
+    @Column(nullable = false)
+    @ColumnDefault("1") // Linhas antigas (uma por cópia) entram com quantidade 1 até a compactação
+    private int quantidade = 1;
+
+    @Version // Controle de concorrência otimista: duas trocas que mexem na mesma pilha ao mesmo tempo não se sobrescrevem
+    @Column(nullable = false)
+    private long versao;
+
     @ManyToOne(fetch = FetchType.LAZY) // Define um relacionamento muitos-para-um entre Figurinha e Album.
     @JoinColumn(name = "album_id") // Especifica a coluna que será usada para o join com a tabela Album.
     @JsonBackReference("album-figurinhas") // Evita referência cíclica durante a serialização JSON.
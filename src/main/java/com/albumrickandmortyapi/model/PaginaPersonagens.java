@@ -0,0 +1,28 @@
+package com.albumrickandmortyapi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Guarda o estado da sincronização de cada página da listagem /character da API.
+// O checksum permite pular as páginas que não mudaram desde a última sincronização.
+@Entity // Indica que essa classe é uma entidade JPA que será mapeada para uma tabela no banco de dados.
+@Data // Gera automaticamente os getters, setters, toString, equals e hashCode
+@NoArgsConstructor // Gera um construtor sem argumentos
+@AllArgsConstructor // Gera um construtor com todos os argumentos
+@Table(name = "paginas_personagens") // Especifica o nome da tabela no banco de dados para essa entidade.
+public class PaginaPersonagens {
+
+    @Id // O número da página na API é a chave primária
+    private Integer numero;
+
+    @Column(length = 64) // SHA-256 em hexadecimal
+    private String checksum; // Checksum do conteúdo da página na última sincronização
+
+    private LocalDateTime ultimaSincronizacao; // Última vez que a página foi conferida na API
+
+    private LocalDateTime ultimaAlteracao; // Última vez que o conteúdo da página mudou
+}
@@ -0,0 +1,28 @@
+package com.albumrickandmortyapi.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+// Cópia local dos personagens da API do Rick and Morty, para que a aplicação funcione sem depender da rede.
+@Entity // Indica que essa classe é uma entidade JPA que será mapeada para uma tabela no banco de dados.
+@Data // Gera automaticamente os getters, setters, toString, equals e hashCode
+@NoArgsConstructor // Gera um construtor sem argumentos
+@AllArgsConstructor // Gera um construtor com todos os argumentos
+@Table(name = "personagens") // Especifica o nome da tabela no banco de dados para essa entidade.
+@Cacheable // Só muda na sincronização com a API: fica no cache de segundo nível
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "personagens")
+public class Personagem {
+
+    @Id // Usa o mesmo ID do personagem na API (não é gerado pelo banco)
+    private Long id;
+
+    private String nome; // Nome do personagem
+
+    private String status; // "Alive", "Dead" ou "unknown" (usado na lógica de raridade)
+
+    private String especie; // Espécie do personagem
+}
@@ -8,6 +8,13 @@ import lombok.NoArgsConstructor;
 @Entity
 @Data
 @NoArgsConstructor
+@Table(indexes = { // Índices simples nas figurinhas (antes eram únicos por causa do @OneToOne)
+        @Index(name = "idx_proposta_figurinha_oferecida", columnList = "figurinha_oferecida_id"),
+        @Index(name = "idx_proposta_figurinha_desejada", columnList = "figurinha_desejada_id"),
+        // Caixas de entrada e de saída: filtro por usuário e status, paginação por ID, tudo resolvido no índice
+        @Index(name = "idx_proposta_receptor_status", columnList = "receptor_id, status, id"),
+        @Index(name = "idx_proposta_ofertante_status", columnList = "ofertante_id, status, id")
+})
 public class PropostaTroca {
 
     @Id
@@ -28,19 +35,23 @@ public class PropostaTroca {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "album"})
     private Usuario usuarioReceptor;
 
-    // Figurinha oferecida
-    @OneToOne(fetch = FetchType.LAZY)
+    // Figurinha oferecida (a proposta troca UMA cópia da pilha; várias propostas podem apontar para a mesma pilha)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "figurinha_oferecida_id")
     // ATENÇÃO AQUI: Ignorar os campos do Hibernate Proxy e o relacionamento cíclico 'album'
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "album"})
     private Figurinha figurinhaOferecida;
 
-    // Figurinha desejada
-    @OneToOne(fetch = FetchType.LAZY)
+    // Figurinha desejada (UMA cópia da pilha do receptor)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "figurinha_desejada_id")
     // ATENÇÃO AQUI: Ignorar os campos do Hibernate Proxy e o relacionamento cíclico 'album'
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "album"})
     private Figurinha figurinhaDesejada;
 
-    private String status = "PENDENTE";
+    private String status = "PENDENTE"; // PENDENTE, ACEITA ou CANCELADA
+
+    @Version // Controle de concorrência otimista: a mesma proposta não é aceita (ou cancelada) duas vezes
+    @Column(nullable = false)
+    private long versao;
 }
\ No newline at end of file
@@ -7,12 +7,16 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity // Indica que essa classe é uma entidade JPA
 @Data // Gera getters e setters automaticamente
 @NoArgsConstructor // Gera um construtor sem argumentos
 @AllArgsConstructor // Gera um construtor com todos os argumentos
 @Table(name = "usuarios") // Define o nome da tabela no banco de dados
+@Cacheable // Usuários mudam pouco: ficam no cache de segundo nível (região "usuarios", limites em application.conf)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuarios") // Cada escrita atualiza o cache no commit
 public class Usuario {
 
 
@@ -1,11 +1,68 @@
 package com.albumrickandmortyapi.repository;
 
 import com.albumrickandmortyapi.model.Album;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 // Repositório para a entidade Album, estendendo JpaRepository para fornecer operações CRUD básicas.
 public interface AlbumRepository extends JpaRepository<Album, Long> {
+    // Resultado guardado no cache de consultas (só o ID; o álbum vem do cache de segundo nível).
+    // Qualquer escrita na tabela de álbuns invalida os resultados guardados
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Album> findByUsuarioId(Long usuarioId);
+
+    boolean existsByUsuarioId(Long usuarioId);
+
+    // Lê só o contador de personagens distintos (uma linha, sem carregar figurinhas)
+    @Query("select a.personagensDistintos from Album a where a.usuario.id = :usuarioId")
+    Optional<Integer> findPersonagensDistintosByUsuarioId(Long usuarioId);
+
+    // Lê só a versão do álbum (base do ETag das consultas de álbum e progresso)
+    @Query("select a.versao from Album a where a.usuario.id = :usuarioId")
+    Optional<Long> findVersaoByUsuarioId(Long usuarioId);
+
+    // Lê só o bitmap de personagens possuídos (uma linha, sem carregar figurinhas).
+    // O ID vai junto para um álbum ainda sem bitmap (coluna nula) não ser confundido com álbum inexistente.
+    @Query("select a.id as id, a.personagensPossuidos as personagensPossuidos from Album a where a.usuario.id = :usuarioId")
+    Optional<BitmapPersonagens> findBitmapPersonagensByUsuarioId(Long usuarioId);
+
+    // IDs dos álbuns em lotes e em ordem (o reparo percorre os álbuns assim, um lote por transação)
+    @Query("select a.id from Album a where a.id > :id order by a.id")
+    List<Long> findIdsAposId(Long id, Pageable pageable);
+
+    // Versão do álbum de cada usuário (usuário, versão); quem não aparece não tem mais álbum (índice de trocas)
+    @Query("select a.usuario.id, a.versao from Album a where a.usuario.id in :usuarioIds")
+    List<Object[]> findVersoesByUsuarioIds(Collection<Long> usuarioIds);
+
+    // IDs dos usuários que têm álbum, em lotes e em ordem (reconstrução do índice de trocas)
+    @Query("select a.usuario.id from Album a where a.usuario.id > :usuarioId order by a.usuario.id")
+    List<Long> findUsuarioIdsAposId(Long usuarioId, Pageable pageable);
+
+    // Dados do ranking de colecionadores (usuário, álbum, personagens distintos, versão) dos usuários informados
+    @Query("select a.usuario.id, a.id, a.personagensDistintos, a.versao from Album a where a.usuario.id in :usuarioIds")
+    List<Object[]> findRankingByUsuarioIds(Collection<Long> usuarioIds);
+
+    // Os mesmos dados em lotes e em ordem de usuário (reconstrução do ranking)
+    @Query("select a.usuario.id, a.id, a.personagensDistintos, a.versao from Album a where a.usuario.id > :usuarioId order by a.usuario.id")
+    List<Object[]> findRankingAposUsuarioId(Long usuarioId, Pageable pageable);
+
+    // Projeção com apenas o bitmap do álbum
+    interface BitmapPersonagens {
+        Long getId();
+
+        byte[] getPersonagensPossuidos();
+
+        default BitSet bitmap() {
+            return getPersonagensPossuidos() == null ? new BitSet() : BitSet.valueOf(getPersonagensPossuidos());
+        }
+    }
 }
@@ -1,8 +1,62 @@
 package com.albumrickandmortyapi.repository;
 
+import com.albumrickandmortyapi.dto.ContagemFigurinhaDTO;
+import com.albumrickandmortyapi.dto.FigurinhaDTO;
 import com.albumrickandmortyapi.model.Figurinha;
+import com.albumrickandmortyapi.model.Raridade;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 // Repositório para a entidade Figurinha, estendendo JpaRepository para fornecer operações CRUD básicas.
 public interface FigurinhaRepository extends JpaRepository<Figurinha, Long> {
+
+    // Pares (álbum, personagem) distintos de um lote de álbuns, usado pelo reparo dos bitmaps (só pilhas com cópias)
+    @Query("select distinct f.album.id, f.idPersonagemApi from Figurinha f where f.album.id in :albumIds and f.quantidade > 0")
+    List<Object[]> findPersonagensPorAlbum(Collection<Long> albumIds);
+
+    // Figurinhas do álbum de um usuário já no formato de DTO (sem carregar as entidades)
+    @Query("select new com.albumrickandmortyapi.dto.FigurinhaDTO(f.id, f.idPersonagemApi, f.nomePersonagem, f.raridade, f.quantidade) " +
+            "from Figurinha f where f.album.usuario.id = :usuarioId and f.quantidade > 0 order by f.id")
+    List<FigurinhaDTO> findDTOsByUsuarioId(Long usuarioId);
+
+    // Página de figurinhas do álbum de um usuário, a partir de um cursor (ID da última figurinha já lida)
+    @Query("select new com.albumrickandmortyapi.dto.FigurinhaDTO(f.id, f.idPersonagemApi, f.nomePersonagem, f.raridade, f.quantidade) " +
+            "from Figurinha f where f.album.usuario.id = :usuarioId and f.quantidade > 0 and f.id > :aposId order by f.id")
+    List<FigurinhaDTO> findPaginaDTOsByUsuarioId(Long usuarioId, Long aposId, Pageable pageable);
+
+    // Todas as figurinhas do álbum de um usuário como Stream, lidas do banco aos poucos (cursor), sem carregar tudo na memória.
+    // Precisa ser consumido dentro de uma transação. No MySQL o cursor depende de useCursorFetch=true (veja application.properties).
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.albumrickandmortyapi.dto.FigurinhaDTO(f.id, f.idPersonagemApi, f.nomePersonagem, f.raridade, f.quantidade) " +
+            "from Figurinha f where f.album.usuario.id = :usuarioId and f.quantidade > 0 order by f.id")
+    Stream<FigurinhaDTO> streamDTOsByUsuarioId(Long usuarioId);
+
+    // Pilhas REPETIDAS (mais de uma cópia) do álbum de um usuário: a quantidade já está na linha, sem agrupar nada
+    @Query("select new com.albumrickandmortyapi.dto.ContagemFigurinhaDTO(f.nomePersonagem, f.raridade, f.quantidade) " +
+            "from Figurinha f where f.album.usuario.id = :usuarioId and f.quantidade > 1")
+    List<ContagemFigurinhaDTO> contarRepetidasByUsuarioId(Long usuarioId);
+
+    // Quantas cópias de um personagem o álbum possui (somando todas as raridades)
+    @Query("select coalesce(sum(f.quantidade), 0) from Figurinha f where f.album.id = :albumId and f.idPersonagemApi = :idPersonagemApi")
+    long somarQuantidadePorPersonagem(Long albumId, Long idPersonagemApi);
+
+    // Total de cópias por personagem de cada usuário (usuário, personagem, quantidade), usado pelo índice de trocas
+    @Query("select f.album.usuario.id, f.idPersonagemApi, sum(f.quantidade) from Figurinha f " +
+            "where f.album.usuario.id in :usuarioIds and f.quantidade > 0 group by f.album.usuario.id, f.idPersonagemApi")
+    List<Object[]> somarQuantidadesPorPersonagemDosUsuarios(Collection<Long> usuarioIds);
+
+    // Pilhas que o álbum já tem de alguns personagens (usado para empilhar as figurinhas de um pacote)
+    List<Figurinha> findByAlbumIdAndIdPersonagemApiIn(Long albumId, Collection<Long> idsPersonagemApi);
+
+    // A pilha de um personagem em uma raridade dentro do álbum, se existir
+    Optional<Figurinha> findByAlbumIdAndIdPersonagemApiAndRaridade(Long albumId, Long idPersonagemApi, Raridade raridade);
 }
@@ -0,0 +1,8 @@
+package com.albumrickandmortyapi.repository;
+
+import com.albumrickandmortyapi.model.PaginaPersonagens;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+// Repositório para a entidade PaginaPersonagens, estendendo JpaRepository para fornecer operações CRUD básicas.
+public interface PaginaPersonagensRepository extends JpaRepository<PaginaPersonagens, Integer> {
+}
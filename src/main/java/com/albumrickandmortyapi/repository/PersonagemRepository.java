@@ -0,0 +1,8 @@
+package com.albumrickandmortyapi.repository;
+
+import com.albumrickandmortyapi.model.Personagem;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+// Repositório para a entidade Personagem, estendendo JpaRepository para fornecer operações CRUD básicas.
+public interface PersonagemRepository extends JpaRepository<Personagem, Long> {
+}
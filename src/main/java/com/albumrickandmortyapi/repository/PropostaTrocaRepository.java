@@ -1,11 +1,65 @@
 package com.albumrickandmortyapi.repository;
 
+import com.albumrickandmortyapi.dto.DetalheTrocaDTO;
+import com.albumrickandmortyapi.dto.ResumoTrocaDTO;
 import com.albumrickandmortyapi.model.PropostaTroca;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 // Repositório para a entidade PropostaTroca, estendendo JpaRepository para fornecer operações CRUD básicas.
 public interface PropostaTrocaRepository extends JpaRepository<PropostaTroca, Long> {
-    // Busca todas as propostas enviadas ou recebidas por um usuário
-//    List<PropostaTroca> findByUsuarioOfertanteIdOrUsuarioReceptorId(Long ofertanteId, Long receptorId);
+
+    // Joins usados pelas consultas que montam os DTOs de troca: usuários e figurinhas vêm na mesma consulta da proposta
+    String JOINS_TROCA = "from PropostaTroca p join p.usuarioOfertante o join p.usuarioReceptor r " +
+            "join p.figurinhaOferecida fo join p.figurinhaDesejada fd ";
+    String CAMPOS_TROCA = "p.id, p.status, o.id, o.nome, r.id, r.nome, fo.id, fo.nomePersonagem, fo.raridade, fd.id, fd.nomePersonagem, fd.raridade";
+
+    // Verifica se a figurinha está envolvida em alguma proposta PENDENTE (de um lado ou do outro).
+    // Propostas já aceitas continuam apontando para a pilha, mas não prendem mais nenhuma cópia.
+    @Query("select count(p) > 0 from PropostaTroca p where p.status = 'PENDENTE' " +
+            "and (p.figurinhaOferecida.id = :figurinhaId or p.figurinhaDesejada.id = :figurinhaId)")
+    boolean existsPendenteByFigurinhaId(Long figurinhaId);
+
+    // Caixa de entrada: propostas RECEBIDAS pelo usuário com um status, a partir de um cursor (ID da última proposta já lida)
+    @Query("select new com.albumrickandmortyapi.dto.ResumoTrocaDTO(" + CAMPOS_TROCA + ") " + JOINS_TROCA +
+            "where r.id = :usuarioId and p.status = :status and p.id > :aposId order by p.id")
+    List<ResumoTrocaDTO> findRecebidas(Long usuarioId, String status, Long aposId, Pageable pageable);
+
+    // Caixa de saída: propostas ENVIADAS pelo usuário com um status, a partir de um cursor
+    @Query("select new com.albumrickandmortyapi.dto.ResumoTrocaDTO(" + CAMPOS_TROCA + ") " + JOINS_TROCA +
+            "where o.id = :usuarioId and p.status = :status and p.id > :aposId order by p.id")
+    List<ResumoTrocaDTO> findEnviadas(Long usuarioId, String status, Long aposId, Pageable pageable);
+
+    // Busca todas as propostas enviadas ou recebidas por um usuário, já como DTO (uma consulta só, qualquer que seja o tamanho da lista)
+    @Query("select new com.albumrickandmortyapi.dto.DetalheTrocaDTO(" + CAMPOS_TROCA + ") " + JOINS_TROCA +
+            "where o.id = :ofertanteId or r.id = :receptorId order by p.id")
+    List<DetalheTrocaDTO> findByUsuarioOfertanteIdOrUsuarioReceptorId(Long ofertanteId, Long receptorId);
+
+    // Detalhe de uma proposta já como DTO, em uma única consulta
+    @Query("select new com.albumrickandmortyapi.dto.DetalheTrocaDTO(" + CAMPOS_TROCA + ") " + JOINS_TROCA + "where p.id = :id")
+    Optional<DetalheTrocaDTO> findDetalheById(Long id);
+
+    // Lê só a versão da proposta (base do ETag da consulta de detalhe)
+    @Query("select p.versao from PropostaTroca p where p.id = :id")
+    Optional<Long> findVersaoById(Long id);
+
+    // Cancela de uma vez as outras propostas PENDENTES que dependem de pilhas que ficaram sem cópias.
+    // A versão também sobe, então quem estiver aceitando uma dessas propostas ao mesmo tempo recebe conflito e tenta de novo.
+    @Modifying
+    @Query("update PropostaTroca p set p.status = 'CANCELADA', p.versao = p.versao + 1 " +
+            "where p.status = 'PENDENTE' and p.id <> :propostaId " +
+            "and (p.figurinhaOferecida.id in :figurinhaIds or p.figurinhaDesejada.id in :figurinhaIds)")
+    int cancelarPendentesComFigurinhas(Long propostaId, Collection<Long> figurinhaIds);
+
+    // Proposta com as duas figurinhas e seus álbuns já carregados (usado ao aceitar, que altera as pilhas e os álbuns)
+    @EntityGraph(attributePaths = {"figurinhaOferecida.album", "figurinhaDesejada.album"})
+    @Query("select p from PropostaTroca p where p.id = :id")
+    Optional<PropostaTroca> findComFigurinhasById(Long id);
 }
\ No newline at end of file
@@ -1,8 +1,35 @@
 package com.albumrickandmortyapi.repository;
 
+import com.albumrickandmortyapi.dto.UsuarioListagemDTO;
 import com.albumrickandmortyapi.model.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 // Repositório para a entidade Usuario, estendendo JpaRepository para fornecer operações CRUD básicas.
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+
+    // Monta a listagem direto no banco, com o ID do álbum vindo do join (sem carregar as entidades)
+    String SELECT_LISTAGEM = "select new com.albumrickandmortyapi.dto.UsuarioListagemDTO(u.id, u.nome, u.email, a.id) " +
+            "from Usuario u left join u.album a ";
+
+    // Todos os usuários já como DTO, em uma única consulta
+    @Query(SELECT_LISTAGEM + "order by u.id")
+    List<UsuarioListagemDTO> findAllListagem();
+
+    // Página de usuários a partir de um cursor (ID do último usuário já lido)
+    @Query(SELECT_LISTAGEM + "where u.id > :aposId order by u.id")
+    List<UsuarioListagemDTO> findPaginaListagem(Long aposId, Pageable pageable);
+
+    // Todos os usuários como Stream, lidos do banco aos poucos (cursor), sem carregar tudo na memória.
+    // Precisa ser consumido dentro de uma transação. No MySQL o cursor depende de useCursorFetch=true (veja application.properties).
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_LISTAGEM + "order by u.id")
+    Stream<UsuarioListagemDTO> streamListagem();
 }
@@ -1,22 +1,47 @@
 package com.albumrickandmortyapi.service;
 
-import com.albumrickandmortyapi.client.RickAndMortyClient;
 import com.albumrickandmortyapi.dto.AlbumDetalhadoDTO;
 import com.albumrickandmortyapi.dto.CharacterDTO;
+import com.albumrickandmortyapi.dto.ContagemFigurinhaDTO;
 import com.albumrickandmortyapi.dto.FigurinhaDTO;
+import com.albumrickandmortyapi.dto.PaginaCursorDTO;
+import com.albumrickandmortyapi.event.AlbumAlteradoEvent;
+import com.albumrickandmortyapi.metricas.MetricasAlbum;
 import com.albumrickandmortyapi.model.Album;
 import com.albumrickandmortyapi.model.Figurinha;
 import com.albumrickandmortyapi.model.Raridade;
 import com.albumrickandmortyapi.repository.AlbumRepository;
 import com.albumrickandmortyapi.repository.FigurinhaRepository;
-import jakarta.annotation.PostConstruct;
-import jakarta.transaction.Transactional;
+import com.albumrickandmortyapi.repository.PropostaTrocaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // Essa classe contém a lógica de negócio relacionada ao álbum e pacotes de figurinhas
 @Service // Anotação para marcar esta classe como um serviço do Spring
@@ -24,84 +49,206 @@ public class AlbumService {
 
     // --- Injeção de Dependências ---
     private final AlbumRepository albumRepository;
-    private final RickAndMortyClient rickAndMortyClient;
     private final FigurinhaRepository figurinhaRepository;
-    private int totalPersonagens = 0;
+    private final CatalogoPersonagensService catalogoPersonagens;
+    private final PackGenerator packGenerator;
+    private final PropostaTrocaRepository propostaTrocaRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate; // INSERT em lote das pilhas novas dos pacotes
+    private final MetricasAlbum metricas;
+    private final TransactionTemplate transactionTemplate; // Transação da abertura de pacotes e do descarte (o timer mede também o commit)
+    private final int tentativasAlteracao; // Quantas vezes a abertura ou o descarte é refeito quando outra transação mexe no mesmo álbum
+    private final TransactionTemplate leituraTransactionTemplate; // Transação somente leitura para a exportação por cursor
+
+    private static final int TAMANHO_MAXIMO_PAGINA = 500;
+    private static final int FIGURINHAS_POR_PACOTE = 5;
+    private static final int MAXIMO_PACOTES_POR_VEZ = 50; // Promoções abrem de 10 a 50 pacotes de uma vez
 
     // Construtor para injeção de dependências
-    public AlbumService(AlbumRepository albumRepository, RickAndMortyClient rickAndMortyClient, FigurinhaRepository figurinhaRepository) {
+    public AlbumService(AlbumRepository albumRepository, FigurinhaRepository figurinhaRepository, CatalogoPersonagensService catalogoPersonagens,
+                        PackGenerator packGenerator, PropostaTrocaRepository propostaTrocaRepository, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                        ApplicationEventPublisher eventPublisher, JdbcTemplate jdbcTemplate, MetricasAlbum metricas,
+                        @Value("${album.pacotes.tentativas:3}") int tentativasAlteracao) {
         this.figurinhaRepository = figurinhaRepository;
+        this.propostaTrocaRepository = propostaTrocaRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.metricas = metricas;
+        this.tentativasAlteracao = tentativasAlteracao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leituraTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.leituraTransactionTemplate.setReadOnly(true);
         this.albumRepository = albumRepository;
-        this.rickAndMortyClient = rickAndMortyClient;
+        this.catalogoPersonagens = catalogoPersonagens;
+        this.packGenerator = packGenerator;
     }
 
 
     // --- Lógica de Abertura de Pacote ---
-    @PostConstruct // O objetivo desse metodo é inicializar esse metodo assim que o serviço for criado( o serviço é criado quando a aplicação sobe)
-    public void inicializarTotalPersonagens() {
-        try {
-            // Usa o Feign Client para obter o número total de personagens
-            this.totalPersonagens = rickAndMortyClient.buscarDadosGerais().getInfo().getCount();
-        } catch (Exception e) {
-            // caso de erro, ele atribui um valor padrão e retorna uma mensagem de erro no console
-            System.err.println("Erro ao inicializar o total de personagens da API: " + e.getMessage());
-            this.totalPersonagens = 826; // Valor fallback
-        }
+    // O total vem do catálogo local de personagens (0 enquanto ele ainda não tem nenhum personagem)
+    private int totalPersonagens() {
+        return catalogoPersonagens.getTotalPersonagens();
     }
 
 
 
     // Esse meotodo serve para abrir um pacote de figurinhas para um usuário específico
-    @Transactional // Garante que todas as operações dentro deste método sejam atômicas ( atomicas é quando todas as operações são concluídas com sucesso ou nenhuma é aplicada)
     public List<FigurinhaDTO> abrirPacote(Long usuarioId) {
-        // Verifica se o total de personagens foi inicializado
-        if (totalPersonagens == 0) throw new RuntimeException("O sistema ainda não carregou o total de personagens. Tente novamente em alguns segundos.");
+        return abrirPacotes(usuarioId, 1);
+    }
+
+    // Abre vários pacotes de uma vez. Tudo acontece em uma única transação e as pilhas novas são gravadas em INSERTs em lote.
+    // O tempo de toda a abertura, commit e novas tentativas incluídos, vai para o timer album.pacotes.abertura
+    public List<FigurinhaDTO> abrirPacotes(Long usuarioId, int quantidadePacotes) {
+        List<FigurinhaDTO> figurinhas = metricas.medir(MetricasAlbum.ABERTURA_PACOTES,
+                () -> executarComTentativas(status -> abrirPacotesNaTransacao(usuarioId, quantidadePacotes)));
+
+        // Só conta as figurinhas de pacotes que realmente foram gravados
+        figurinhas.forEach(figurinha -> metricas.contarFigurinha(Raridade.valueOf(figurinha.getRaridade())));
+        return figurinhas;
+    }
+
+    private List<FigurinhaDTO> abrirPacotesNaTransacao(Long usuarioId, int quantidadePacotes) {
+        if (quantidadePacotes < 1 || quantidadePacotes > MAXIMO_PACOTES_POR_VEZ) {
+            throw new RuntimeException("A quantidade de pacotes deve ser entre 1 e " + MAXIMO_PACOTES_POR_VEZ + ".");
+        }
+
+        // Verifica se o catálogo de personagens já foi carregado pela inicialização assíncrona
+        if (!catalogoPersonagens.isPronto()) throw new RuntimeException("O sistema ainda não carregou o total de personagens. Tente novamente em alguns segundos.");
 
         // Busca o álbum do usuário
         Album album = albumRepository.findByUsuarioId(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Álbum não encontrado para o ID: " + usuarioId));
 
-        // Lista para guardar as entidades (para adicionar ao álbum)
-        List<Figurinha> figurinhasPersistidas = new ArrayList<>();
-
-        // Lista para guardar os DTOs (para o retorno da API)
-        List<FigurinhaDTO> figurinhasRetornoDTO = new ArrayList<>(); // NOVA LISTA
+        // Sorteia 5 figurinhas por pacote (com semente configurada, a mesma abertura sempre gera os mesmos pacotes)
+        RandomGenerator sorteio = packGenerator.novoSorteio(usuarioId, album.getVersao());
+        // Pega o total de personagens do catálogo
+        int totalPersonagens = totalPersonagens();
+        int totalFigurinhas = quantidadePacotes * FIGURINHAS_POR_PACOTE;
 
-        // Sorteia 5 figurinhas
-        Random random = new Random();
-        // Pega o total de personagens da API
-        int totalPersonagens = this.totalPersonagens;
+        // 1. Sorteia os IDs de todos os pacotes primeiro
+        List<Long> idsSorteados = new ArrayList<>(totalFigurinhas);
+        for (int i = 0; i < totalFigurinhas; i++) {
+            idsSorteados.add(packGenerator.sortearPersonagem(sorteio, totalPersonagens));
+        }
 
-        // Loop para sortear 5 figurinhas
-        for (int i = 0; i < 5; i++) {
-            Long idSorteado = 1L + (long) random.nextInt(totalPersonagens);
+        // 2. Resolve todos os personagens de uma vez (catálogo em memória ou uma única chamada em lote na API)
+        Map<Long, CharacterDTO> personagens = catalogoPersonagens.resolverPersonagens(idsSorteados);
+
+        // 3. Sorteia a raridade de cada figurinha e junta as repetidas dos próprios pacotes (pilha -> quantas cópias vieram)
+        List<PilhaFigurinha> sorteadas = new ArrayList<>(totalFigurinhas);
+        Map<PilhaFigurinha, Integer> copiasPorPilha = new LinkedHashMap<>();
+        for (Long idSorteado : idsSorteados) {
+            CharacterDTO personagemApi = personagens.get(idSorteado);
+            if (personagemApi == null) {
+                throw new RuntimeException("Personagem não encontrado na API para o ID: " + idSorteado);
+            }
+            PilhaFigurinha pilha = new PilhaFigurinha(personagemApi.getId(), packGenerator.sortearRaridade(sorteio, personagemApi.getStatus()));
+            sorteadas.add(pilha);
+            copiasPorPilha.merge(pilha, 1, Integer::sum);
+        }
 
-            // Busca o personagem na API
-            CharacterDTO personagemApi = rickAndMortyClient.buscarPersonagemPorId(idSorteado);
+        // 4. Busca de uma vez só as pilhas que o álbum já tem desses personagens (nunca a coleção inteira do álbum)
+        Map<PilhaFigurinha, Figurinha> pilhas = new HashMap<>();
+        figurinhaRepository.findByAlbumIdAndIdPersonagemApiIn(album.getId(), personagens.keySet())
+                .forEach(pilha -> pilhas.put(new PilhaFigurinha(pilha.getIdPersonagemApi(), pilha.getRaridade()), pilha));
+
+        // 5. Liga os bits dos personagens sorteados (o contador de personagens distintos acompanha o bitmap)
+        BitSet bitmap = album.bitmapPersonagens();
+        idsSorteados.forEach(id -> bitmap.set(id.intValue()));
+        album.atualizarBitmapPersonagens(bitmap);
+
+        // 6. Soma as cópias nas pilhas que já existem (UPDATEs em lote no commit) ou separa a pilha nova já com a quantidade certa
+        List<Figurinha> novas = new ArrayList<>();
+        copiasPorPilha.forEach((chave, copias) -> {
+            Figurinha pilha = pilhas.get(chave);
+            if (pilha != null) {
+                pilha.setQuantidade(pilha.getQuantidade() + copias);
+                return;
+            }
 
             // Cria a entidade Figurinha
             Figurinha nova = new Figurinha();
-            nova.setIdPersonagemApi(personagemApi.getId()); // ID da API
-            nova.setNomePersonagem(personagemApi.getName());   // Nome do personagem
-            nova.setRaridade(determinarRaridade(personagemApi)); // Determina a raridade
-            nova.setAlbum(album); // Associa ao álbum
+            nova.setIdPersonagemApi(chave.idPersonagemApi()); // ID da API
+            nova.setNomePersonagem(personagens.get(chave.idPersonagemApi()).getName());   // Nome do personagem
+            nova.setRaridade(chave.raridade());
+            nova.setQuantidade(copias);
+            nova.setAlbum(album); // Só a referência ao álbum: a lista album.getFigurinhas() não é carregada nem alterada
 
-            // 1. SALVA a entidade Figurinha
-            Figurinha figurinhaSalva = figurinhaRepository.save(nova);
+            novas.add(nova);
+            pilhas.put(chave, nova);
+        });
 
-            figurinhasPersistidas.add(figurinhaSalva); // Adiciona à lista de figurinhas persistidas
+        // 7. Todas as pilhas novas em um único INSERT em lote, na mesma transação
+        inserirPilhas(album.getId(), novas);
 
-            // 2. MAPEA para o DTO e adiciona à lista de retorno da API
-            figurinhasRetornoDTO.add(FigurinhaDTO.fromEntity(figurinhaSalva));
+        // O álbum já está gerenciado pela transação: o bitmap e a versão são gravados no commit, sem precisar de save
+
+        // Avisa quem acompanha o inventário (ex: índice de trocas), que relê o álbum depois do commit
+        eventPublisher.publishEvent(AlbumAlteradoEvent.de(usuarioId));
+
+        // MAPEA cada figurinha sorteada para o DTO de retorno da API (com a quantidade atual da pilha)
+        return sorteadas.stream()
+                .map(chave -> FigurinhaDTO.fromEntity(pilhas.get(chave)))
+                .toList();
+    }
+
+    // Insere as pilhas novas com um único lote JDBC e preenche os IDs gerados pelo banco.
+    // O Hibernate não agrupa INSERTs de entidades com IDENTITY (precisa do ID de cada linha na hora), e uma tabela de sequência
+    // precisaria de uma segunda conexão do pool no meio da transação: com o pool todo ocupado, as aberturas esperariam umas pelas outras.
+    private void inserirPilhas(Long albumId, List<Figurinha> novas) {
+        if (novas.isEmpty()) {
+            return;
         }
 
-        // Adiciona as figurinhas PERSISTIDAS à lista do álbum em memória
-        album.getFigurinhas().addAll(figurinhasPersistidas);
+        KeyHolder ids = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(conexao -> conexao.prepareStatement(
+                        "INSERT INTO figurinhas (album_id, id_personagem_api, nome_personagem, raridade, quantidade, versao) VALUES (?, ?, ?, ?, ?, 0)",
+                        new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Figurinha nova = novas.get(i);
+                        ps.setLong(1, albumId);
+                        ps.setLong(2, nova.getIdPersonagemApi());
+                        ps.setString(3, nova.getNomePersonagem());
+                        ps.setString(4, nova.getRaridade().name());
+                        ps.setInt(5, nova.getQuantidade());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return novas.size();
+                    }
+                }, ids);
+
+        List<Map<String, Object>> chaves = ids.getKeyList();
+        for (int i = 0; i < novas.size(); i++) {
+            novas.get(i).setId(((Number) chaves.get(i).values().iterator().next()).longValue());
+        }
+    }
 
-        // Salva o álbum (segurança)
-        albumRepository.save(album);
+    // Sem locks no banco: o álbum e as pilhas têm @Version. Se outra abertura, troca ou descarte alterou o mesmo álbum no meio
+    // do caminho, o commit falha com conflito e a operação é refeita do zero em uma transação nova (o sorteio usa a versão nova do álbum)
+    private <T> T executarComTentativas(TransactionCallback<T> operacao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                // Cada tentativa é uma transação nova (atomica: todas as operações são concluídas com sucesso ou nenhuma é aplicada)
+                return transactionTemplate.execute(operacao);
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // Conflito de versão, ou duas transações criando a mesma pilha no mesmo álbum
+                metricas.contarConflitoAlbum();
+                if (tentativa >= tentativasAlteracao) {
+                    throw new RuntimeException("Não foi possível alterar o álbum por causa de outras operações simultâneas. Tente novamente.");
+                }
+            }
+        }
+    }
 
-        return figurinhasRetornoDTO; // RETORNA O DTO
+    // Chave de uma pilha dentro do álbum
+    private record PilhaFigurinha(Long idPersonagemApi, Raridade raridade) {
     }
 
     // --- Lógica de Busca de Álbum ---
@@ -110,44 +257,85 @@ public class AlbumService {
                 .orElseThrow(() -> new RuntimeException("Álbum não encontrado para o ID: " + usuarioId));
     }
 
-    // --- Lógica de Raridade ---
-    private Raridade determinarRaridade(CharacterDTO personagem) {
-        Random random = new Random();
+    // --- Lógica de Remoção de Figurinha ---
+    // Descarta UMA cópia da figurinha do álbum, mantendo o bitmap de personagens em dia
+    public void removerFigurinha(Long usuarioId, Long figurinhaId) {
+        executarComTentativas(status -> {
+            removerFigurinhaNaTransacao(usuarioId, figurinhaId);
+            return null;
+        });
+    }
 
-        // 1. Usa equalsIgnoreCase para evitar problemas com maiúsculas/minúsculas
-        if ("Alive".equalsIgnoreCase(personagem.getStatus())) {
-            // 2. Os retornos são agora constantes do enum (Raridade.COMUM, Raridade.RARA)
-            // 70% de chance de ser COMUM, 30% RARA
-            return random.nextInt(100) < 70 ? Raridade.COMUM : Raridade.RARA;
+    private void removerFigurinhaNaTransacao(Long usuarioId, Long figurinhaId) {
+        Album album = buscarAlbumPorUsuarioId(usuarioId);
+        Figurinha figurinha = figurinhaRepository.findById(figurinhaId)
+                .orElseThrow(() -> new RuntimeException("Figurinha não encontrada com o ID: " + figurinhaId));
+
+        if (!figurinha.getAlbum().getId().equals(album.getId()) || figurinha.getQuantidade() < 1) {
+            throw new RuntimeException("Figurinha não pertence ao álbum do usuário.");
+        }
+        // A última cópia não pode sair enquanto uma proposta pendente conta com ela
+        if (figurinha.getQuantidade() == 1 && propostaTrocaRepository.existsPendenteByFigurinhaId(figurinhaId)) {
+            throw new RuntimeException("Figurinha está em uma proposta de troca e não pode ser removida.");
         }
 
-        // 2. Verifica se o status é "Dead", se for retorna RARA ou LENDARIA
-        if ("Dead".equalsIgnoreCase(personagem.getStatus())) {
-            // 60% RARA, 40% LENDÁRIA
-            return random.nextInt(100) < 60 ? Raridade.RARA : Raridade.LENDARIA;
+        // Só desliga o bit se essa era a última cópia do personagem no álbum (somando todas as raridades)
+        BitSet bitmap = album.bitmapPersonagens();
+        if (figurinhaRepository.somarQuantidadePorPersonagem(album.getId(), figurinha.getIdPersonagemApi()) == 1) {
+            bitmap.clear(figurinha.getIdPersonagemApi().intValue());
         }
+        album.atualizarBitmapPersonagens(bitmap);
+
+        // A pilha continua existindo com quantidade 0 (propostas antigas apontam para ela)
+        figurinha.setQuantidade(figurinha.getQuantidade() - 1);
+
+        eventPublisher.publishEvent(AlbumAlteradoEvent.de(usuarioId));
+    }
+
 
-        // Para "unknown" ou outros status, ou seja neutro, retorna ESPECIAL
-        return Raridade.ESPECIAL;
+    // --- Lógica do Bitmap de Personagens ---
+    // Personagens que o álbum do usuário possui (bit N ligado = tem o personagem de ID N)
+    public BitSet buscarPersonagensPossuidos(Long usuarioId) {
+        return albumRepository.findBitmapPersonagensByUsuarioId(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Álbum não encontrado para o ID: " + usuarioId))
+                .bitmap();
+    }
+
+    // IDs dos personagens do catálogo que ainda faltam no álbum do usuário
+    public List<Long> listarPersonagensFaltantes(Long usuarioId) {
+        BitSet faltantes = new BitSet();
+        faltantes.set(1, totalPersonagens() + 1); // Todos os personagens: IDs de 1 até o total
+        faltantes.andNot(buscarPersonagensPossuidos(usuarioId));
+        return faltantes.stream().mapToObj(id -> (long) id).toList();
+    }
+
+    // Personagens que os dois usuários possuem
+    public BitSet personagensEmComum(Long usuarioId, Long outroUsuarioId) {
+        BitSet emComum = buscarPersonagensPossuidos(usuarioId);
+        emComum.and(buscarPersonagensPossuidos(outroUsuarioId));
+        return emComum;
+    }
+
+    // Personagens que o outro usuário tem e que faltam no álbum do usuário
+    public BitSet personagensQueOutroPodeOferecer(Long usuarioId, Long outroUsuarioId) {
+        BitSet podeOferecer = buscarPersonagensPossuidos(outroUsuarioId);
+        podeOferecer.andNot(buscarPersonagensPossuidos(usuarioId));
+        return podeOferecer;
     }
 
 
     // --- Lógica de Cálculo de Progresso ---
     public double calcularPorcentagemCompleta(Long usuarioId) {
         // Verifica se o total de personagens é maior que zero para evitar divisão por zero
-        if (this.totalPersonagens == 0) return 0.0;
-
-        // Busca o álbum do usuário
-        Album album = buscarAlbumPorUsuarioId(usuarioId);
+        int totalPersonagens = totalPersonagens();
+        if (totalPersonagens == 0) return 0.0;
 
-        // Usa Stream para contar apenas os IDs únicos dos personagens
-        long figurinhasUnicas = album.getFigurinhas().stream()
-                .map(Figurinha::getIdPersonagemApi)
-                .distinct() // Garante que se ele tiver 5 Rick's, conte apenas 1
-                .count();
+        // Lê só o contador de personagens distintos do álbum (uma linha, sem carregar as figurinhas)
+        int figurinhasUnicas = albumRepository.findPersonagensDistintosByUsuarioId(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Álbum não encontrado para o ID: " + usuarioId));
 
         // Cálculo: (Únicas Possuídas / Total Geral) * 100
-        double porcentagem = ((double) figurinhasUnicas / this.totalPersonagens) * 100.0;
+        double porcentagem = ((double) figurinhasUnicas / totalPersonagens) * 100.0;
 
         // Retorna a porcentagem com no máximo 2 casas decimais
         return Math.round(porcentagem * 100.0) / 100.0;
@@ -155,34 +343,69 @@ public class AlbumService {
 
 
 
-    // --- Lógica de Detalhes do Álbum ---
-    public AlbumDetalhadoDTO buscarDetalhesAlbumSimples(Long usuarioId) {
+    // --- Lógica de Listagem das Figurinhas ---
+    // Página de figurinhas do álbum com paginação por cursor: "aposId" é o ID da última figurinha da página anterior (0 na primeira)
+    public PaginaCursorDTO<FigurinhaDTO> listarFigurinhas(Long usuarioId, Long aposId, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        List<FigurinhaDTO> figurinhas = figurinhaRepository.findPaginaDTOsByUsuarioId(usuarioId, aposId, PageRequest.ofSize(tamanhoPagina));
 
-        // 1. Busca o Álbum e todas as figurinhas brutas
-        Album album = albumRepository.findByUsuarioId(usuarioId)
+        // Página vazia pode ser fim da lista ou álbum inexistente: só nesse caso consulta o álbum
+        if (figurinhas.isEmpty() && !albumRepository.existsByUsuarioId(usuarioId)) {
+            throw new RuntimeException("Álbum não encontrado para o ID: " + usuarioId);
+        }
+        return PaginaCursorDTO.de(figurinhas, tamanhoPagina, FigurinhaDTO::getIdFigurinha);
+    }
+
+    // Escreve todas as figurinhas do álbum em NDJSON (um JSON por linha), lendo do banco por cursor.
+    // A memória usada não depende do tamanho da coleção: cada linha é escrita assim que é lida.
+    public void exportarFigurinhas(Long usuarioId, OutputStream saida) {
+        leituraTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<FigurinhaDTO> figurinhas = figurinhaRepository.streamDTOsByUsuarioId(usuarioId)) {
+                figurinhas.forEach(figurinha -> {
+                    try {
+                        saida.write(objectMapper.writeValueAsBytes(figurinha)); // writeValue(saida) fecharia a saída
+                        saida.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Ex: o cliente fechou a conexão no meio
+                    }
+                });
+            }
+        });
+    }
+
+    // ETag dos detalhes e do progresso do álbum. A versão do álbum sobe a cada alteração no conteúdo (pacote aberto,
+    // troca aceita, figurinha descartada) e o total do catálogo entra junto porque o progresso depende dele.
+    // Custa uma leitura da linha do álbum pelo ID do usuário, sem tocar nas figurinhas.
+    public String etagAlbum(Long usuarioId) {
+        long versao = albumRepository.findVersaoByUsuarioId(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Álbum não encontrado para o ID: " + usuarioId));
+        return "\"" + versao + "-" + totalPersonagens() + "\"";
+    }
 
-        //  Obtém a lista de figurinhas brutas
-        List<Figurinha> figurinhasBrutas = album.getFigurinhas();
+    // Verifica se o usuário tem álbum (usado antes de começar a escrever a exportação)
+    public boolean existeAlbum(Long usuarioId) {
+        return albumRepository.existsByUsuarioId(usuarioId);
+    }
 
-        // 2. Calcula o progresso
-        double progresso = calcularPorcentagemCompleta(usuarioId);
 
-        // 3. Lógica para CONTAGEM DE REPETIDAS usando Collectors.groupingBy
-        Map<String, List<Figurinha>> agrupadas = figurinhasBrutas.stream()
-                .collect(Collectors.groupingBy(
-                        f -> f.getNomePersonagem() + " (" + f.getRaridade() + ")"
-                ));
+    // --- Lógica de Detalhes do Álbum ---
+    public AlbumDetalhadoDTO buscarDetalhesAlbumSimples(Long usuarioId) {
 
-        // 4. Cria um mapa que contém apenas a contagem das repetidas (quantidade > 1)
-        Map<String, Integer> contagemRepetidas = agrupadas.entrySet().stream()
-                .filter(entry -> entry.getValue().size() > 1) // Filtra apenas as duplicatas
+        // 1. Calcula o progresso (lê só o contador do álbum; lança exceção se o álbum não existir)
+        double progresso = calcularPorcentagemCompleta(usuarioId);
+
+        // 2. Contagem de repetidas lida direto das pilhas com mais de uma cópia (a quantidade já está na linha)
+        Map<String, Integer> contagemRepetidas = figurinhaRepository.contarRepetidasByUsuarioId(usuarioId).stream()
                 .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> entry.getValue().size() - 1 // Mapeia o nome para o número de CÓPIAS REPETIDAS
+                        ContagemFigurinhaDTO::chave,
+                        contagem -> contagem.getQuantidade() - 1, // Mapeia o nome para o número de CÓPIAS REPETIDAS
+                        Integer::sum // Personagens diferentes com o mesmo nome somam as cópias repetidas de cada um
                 ));
 
-        // 5. Constrói o DTO de Resposta
+        // 3. Lista de figurinhas brutas montada direto como DTO pelo banco (sem carregar as entidades)
+        List<FigurinhaDTO> figurinhasBrutas = figurinhaRepository.findDTOsByUsuarioId(usuarioId);
+
+        // 4. Constrói o DTO de Resposta
         return AlbumDetalhadoDTO.builder()
                 .figurinhasBrutas(figurinhasBrutas) // A lista original (para mostrar a coleção)
                 .contagemDeRepetidas(contagemRepetidas)
@@ -0,0 +1,150 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.client.RickAndMortyClient;
+import com.albumrickandmortyapi.dto.CharacterDTO;
+import com.albumrickandmortyapi.repository.PersonagemRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Essa classe mantém em memória o catálogo completo de personagens da API do Rick and Morty.
+// O catálogo é lido da tabela local de personagens (mantida pela SincronizacaoPersonagensService),
+// assim a abertura de pacotes resolve os personagens sem fazer chamadas HTTP a cada figurinha.
+@Service // Anotação para marcar esta classe como um serviço do Spring
+public class CatalogoPersonagensService {
+
+    // --- Injeção de Dependências ---
+    private final PersonagemRepository personagemRepository;
+    private final RickAndMortyClient rickAndMortyClient;
+
+    // Catálogo atual. É sempre substituído por inteiro (nunca alterado), então quem lê nunca vê um catálogo pela metade
+    private volatile Catalogo catalogo = Catalogo.VAZIO;
+
+    // Construtor para injeção de dependências
+    public CatalogoPersonagensService(PersonagemRepository personagemRepository, RickAndMortyClient rickAndMortyClient) {
+        this.personagemRepository = personagemRepository;
+        this.rickAndMortyClient = rickAndMortyClient;
+    }
+
+
+    // --- Carga do Catálogo ---
+    // Carrega o catálogo da tabela local (não depende da API externa). Na subida é chamado pela inicialização assíncrona.
+    public void recarregar() {
+        List<CharacterDTO> personagens = personagemRepository.findAll().stream()
+                .map(CharacterDTO::fromEntity)
+                .toList();
+        this.catalogo = Catalogo.montar(personagens); // Publica o novo catálogo de uma vez só
+    }
+
+
+    // --- Consultas ---
+    // Total de personagens carregados (0 enquanto o catálogo não foi carregado)
+    public int getTotalPersonagens() {
+        return catalogo.total;
+    }
+
+    // O catálogo está pronto quando já tem personagens carregados (usado no health de readiness)
+    public boolean isPronto() {
+        return catalogo.total > 0;
+    }
+
+    // Busca um personagem pelo ID sem sair da JVM
+    public Optional<CharacterDTO> buscarPorId(Long id) {
+        return Optional.ofNullable(catalogo.buscar(id));
+    }
+
+    // Resolve vários personagens de uma vez: o que está no catálogo sai da memória
+    // e o que faltar é buscado na API em UMA única chamada (IDs repetidos são resolvidos uma vez só)
+    public Map<Long, CharacterDTO> resolverPersonagens(Collection<Long> ids) {
+        Catalogo atual = this.catalogo;
+        Map<Long, CharacterDTO> resolvidos = new HashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+
+        for (Long id : new LinkedHashSet<>(ids)) {
+            CharacterDTO personagem = atual.buscar(id);
+            if (personagem != null) {
+                resolvidos.put(id, personagem);
+            } else {
+                faltantes.add(id);
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            for (CharacterDTO personagem : rickAndMortyClient.buscarPersonagensPorIds(faltantes)) {
+                resolvidos.put(personagem.getId(), personagem);
+            }
+        }
+        return resolvidos;
+    }
+
+
+    // Estrutura compacta do catálogo: arrays indexados pelo ID do personagem.
+    // Status e espécie se repetem muito, então são guardados como índices para uma pequena tabela de valores.
+    private static final class Catalogo {
+
+        static final Catalogo VAZIO = new Catalogo(new String[0], new byte[0], new short[0], new String[0], new String[0], 0);
+
+        private final String[] nomes; // nomes[id] = nome do personagem (null se o ID não existe)
+        private final byte[] status; // status[id] = posição em valoresStatus
+        private final short[] especies; // especies[id] = posição em valoresEspecie
+        private final String[] valoresStatus; // Ex: "Alive", "Dead", "unknown"
+        private final String[] valoresEspecie; // Ex: "Human", "Alien", ...
+        private final int total;
+
+        private Catalogo(String[] nomes, byte[] status, short[] especies, String[] valoresStatus, String[] valoresEspecie, int total) {
+            this.nomes = nomes;
+            this.status = status;
+            this.especies = especies;
+            this.valoresStatus = valoresStatus;
+            this.valoresEspecie = valoresEspecie;
+            this.total = total;
+        }
+
+        static Catalogo montar(List<CharacterDTO> personagens) {
+            long maiorId = personagens.stream().mapToLong(CharacterDTO::getId).max().orElse(0L);
+            int tamanho = (int) maiorId + 1;
+
+            String[] nomes = new String[tamanho];
+            byte[] status = new byte[tamanho];
+            short[] especies = new short[tamanho];
+            Map<String, Integer> indiceStatus = new HashMap<>();
+            Map<String, Integer> indiceEspecie = new HashMap<>();
+
+            for (CharacterDTO personagem : personagens) {
+                int id = personagem.getId().intValue();
+                nomes[id] = personagem.getName();
+                status[id] = (byte) (int) indiceStatus.computeIfAbsent(personagem.getStatus(), chave -> indiceStatus.size());
+                especies[id] = (short) (int) indiceEspecie.computeIfAbsent(personagem.getSpecies(), chave -> indiceEspecie.size());
+            }
+
+            return new Catalogo(nomes, status, especies, valores(indiceStatus), valores(indiceEspecie), personagens.size());
+        }
+
+        // Inverte o mapa valor -> índice em um array índice -> valor
+        private static String[] valores(Map<String, Integer> indice) {
+            String[] valores = new String[indice.size()];
+            indice.forEach((valor, posicao) -> valores[posicao] = valor);
+            return valores;
+        }
+
+        CharacterDTO buscar(Long id) {
+            if (id == null || id < 0 || id >= nomes.length || nomes[id.intValue()] == null) {
+                return null;
+            }
+            int posicao = id.intValue();
+
+            CharacterDTO personagem = new CharacterDTO();
+            personagem.setId(id);
+            personagem.setName(nomes[posicao]);
+            personagem.setStatus(valoresStatus[status[posicao]]);
+            personagem.setSpecies(valoresEspecie[especies[posicao]]);
+            return personagem;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.albumrickandmortyapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Essa classe migra o inventário antigo (uma linha por cópia) para o formato de pilhas (uma linha por álbum + personagem + raridade).
+// Roda na subida, antes da aplicação aceitar tráfego. Depois da primeira vez não encontra nada para compactar e termina na hora.
+@Service // Anotação para marcar esta classe como um serviço do Spring
+@Order(0) // Antes de qualquer outra rotina de inicialização
+public class CompactacaoFigurinhasService implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CompactacaoFigurinhasService.class);
+
+    private static final int TAMANHO_LOTE = 500; // Quantas pilhas são compactadas por transação
+
+    // --- Injeção de Dependências ---
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Construtor para injeção de dependências
+    public CompactacaoFigurinhasService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Várias propostas podem apontar para a mesma pilha, então a unicidade antiga (do @OneToOne) precisa sair antes
+        removerUnicidadeDasPropostas();
+
+        int pilhasCompactadas = 0;
+        while (true) {
+            Integer compactadas = transactionTemplate.execute(status -> compactarLote());
+            if (compactadas == null || compactadas == 0) {
+                break;
+            }
+            pilhasCompactadas += compactadas;
+        }
+
+        if (pilhasCompactadas > 0) {
+            // Com as linhas duplicadas removidas, a restrição única das pilhas já pode ser criada
+            try {
+                jdbcTemplate.execute("ALTER TABLE figurinhas ADD CONSTRAINT uk_figurinhas_album_personagem_raridade " +
+                        "UNIQUE (album_id, id_personagem_api, raridade)");
+            } catch (Exception e) {
+                log.warn("Não foi possível criar a restrição única das figurinhas: {}", e.getMessage());
+            }
+            log.info("Compactação das figurinhas: {} pilhas compactadas", pilhasCompactadas);
+        }
+    }
+
+    // Compacta um lote de grupos duplicados: fica a linha de menor ID, com a soma das quantidades,
+    // as propostas passam a apontar para ela e as outras linhas do grupo são apagadas. Retorna quantos grupos foram compactados.
+    private int compactarLote() {
+        List<Object[]> grupos = jdbcTemplate.query(
+                "SELECT album_id, id_personagem_api, raridade, MIN(id), SUM(quantidade) FROM figurinhas " +
+                        "GROUP BY album_id, id_personagem_api, raridade HAVING COUNT(*) > 1 LIMIT " + TAMANHO_LOTE,
+                (rs, linha) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4), rs.getInt(5)});
+        if (grupos.isEmpty()) {
+            return 0;
+        }
+
+        // Parâmetros (álbum, personagem, raridade, ID mantido) usados para achar as linhas que vão sumir
+        List<Object[]> duplicadas = grupos.stream()
+                .map(g -> new Object[]{g[3], g[0], g[1], g[2], g[3]})
+                .toList();
+
+        String linhasDuplicadas = "SELECT id FROM figurinhas WHERE album_id = ? AND id_personagem_api = ? AND raridade = ? AND id <> ?";
+        jdbcTemplate.batchUpdate("UPDATE proposta_troca SET figurinha_oferecida_id = ? WHERE figurinha_oferecida_id IN (" + linhasDuplicadas + ")", duplicadas);
+        jdbcTemplate.batchUpdate("UPDATE proposta_troca SET figurinha_desejada_id = ? WHERE figurinha_desejada_id IN (" + linhasDuplicadas + ")", duplicadas);
+
+        jdbcTemplate.batchUpdate("UPDATE figurinhas SET quantidade = ? WHERE id = ?",
+                grupos.stream().map(g -> new Object[]{g[4], g[3]}).toList());
+        jdbcTemplate.batchUpdate("DELETE FROM figurinhas WHERE album_id = ? AND id_personagem_api = ? AND raridade = ? AND id <> ?",
+                grupos.stream().map(g -> new Object[]{g[0], g[1], g[2], g[3]}).toList());
+
+        return grupos.size();
+    }
+
+    // Remove os índices únicos que o antigo @OneToOne criou nas colunas de figurinha da proposta (só existem em bancos MySQL antigos).
+    // Os índices simples que os substituem são criados pelo Hibernate a partir do @Table da PropostaTroca.
+    private void removerUnicidadeDasPropostas() {
+        String banco = jdbcTemplate.execute((ConnectionCallback<String>) conexao -> conexao.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(banco)) {
+            return;
+        }
+
+        List<String> indices = jdbcTemplate.queryForList(
+                "SELECT DISTINCT INDEX_NAME FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_SCHEMA = DATABASE() " +
+                        "AND TABLE_NAME = 'proposta_troca' AND NON_UNIQUE = 0 AND INDEX_NAME <> 'PRIMARY' " +
+                        "AND COLUMN_NAME IN ('figurinha_oferecida_id', 'figurinha_desejada_id')", String.class);
+        for (String indice : indices) {
+            jdbcTemplate.execute("ALTER TABLE proposta_troca DROP INDEX `" + indice + "`");
+        }
+    }
+}
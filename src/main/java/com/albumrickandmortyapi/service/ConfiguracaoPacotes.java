@@ -0,0 +1,41 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.model.Raridade;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Pesos usados pelo PackGenerator (propriedades album.pacotes.*).
+// semente: quando informada, os pacotes passam a ser determinísticos (testes de carga e replays)
+// raridades: status do personagem -> (raridade -> peso). A chave "outros" vale para qualquer status não listado
+// pesosPersonagens: ID do personagem -> peso no sorteio (quem não está no mapa tem peso 1)
+@ConfigurationProperties(prefix = "album.pacotes")
+public record ConfiguracaoPacotes(Long semente, Map<String, Map<Raridade, Integer>> raridades, Map<Long, Integer> pesosPersonagens) {
+
+    public static final String OUTROS_STATUS = "outros";
+
+    public ConfiguracaoPacotes {
+        // Sem configuração, valem as chances de sempre: Alive 70% COMUM / 30% RARA, Dead 60% RARA / 40% LENDÁRIA, o resto ESPECIAL
+        if (raridades == null || raridades.isEmpty()) {
+            raridades = Map.of(
+                    "alive", pesos(Raridade.COMUM, 70, Raridade.RARA, 30),
+                    "dead", pesos(Raridade.RARA, 60, Raridade.LENDARIA, 40),
+                    OUTROS_STATUS, pesos(Raridade.ESPECIAL, 100, null, 0));
+        } else if (!raridades.containsKey(OUTROS_STATUS)) {
+            throw new IllegalArgumentException("album.pacotes.raridades precisa ter a chave \"" + OUTROS_STATUS + "\".");
+        }
+        if (pesosPersonagens == null) {
+            pesosPersonagens = Map.of();
+        }
+    }
+
+    private static Map<Raridade, Integer> pesos(Raridade primeira, int pesoPrimeira, Raridade segunda, int pesoSegunda) {
+        Map<Raridade, Integer> pesos = new EnumMap<>(Raridade.class);
+        pesos.put(primeira, pesoPrimeira);
+        if (segunda != null) {
+            pesos.put(segunda, pesoSegunda);
+        }
+        return pesos;
+    }
+}
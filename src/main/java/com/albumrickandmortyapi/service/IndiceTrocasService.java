@@ -0,0 +1,254 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.dto.SugestaoTrocaDTO;
+import com.albumrickandmortyapi.event.ConsumidorAlbunsAlterados;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import com.albumrickandmortyapi.repository.FigurinhaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Essa classe mantém em memória um índice para sugerir trocas sem varrer todos os álbuns no banco.
+// Cada álbum ganha uma posição fixa no índice, com dois bitmaps: personagens que possui e personagens que tem repetidos.
+// A posição de um álbum excluído fica livre e é reaproveitada pelo próximo álbum que entrar.
+// Para cada personagem, outro bitmap marca as posições dos álbuns que têm esse personagem repetido.
+@Service // Anotação para marcar esta classe como um serviço do Spring
+public class IndiceTrocasService implements ConsumidorAlbunsAlterados {
+
+    private static final int TAMANHO_LOTE = 500; // Quantos usuários são carregados por consulta na reconstrução
+
+    // --- Injeção de Dependências ---
+    private final AlbumRepository albumRepository;
+    private final FigurinhaRepository figurinhaRepository;
+
+    // --- Índice ---
+    // Muitas leituras (sugestões) e poucas escritas curtas (um álbum por vez), então um lock de leitura/escrita basta
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> posicaoPorUsuario = new HashMap<>(); // usuário -> posição no índice
+    private final List<EstadoAlbum> estados = new ArrayList<>(); // posição -> estado do álbum (null = posição livre)
+    private final Deque<Integer> posicoesLivres = new ArrayDeque<>(); // Posições de álbuns que saíram do índice
+    private final Map<Integer, BitSet> detentoresDeRepetidas = new HashMap<>(); // personagem -> posições com o personagem repetido
+
+    // Construtor para injeção de dependências
+    public IndiceTrocasService(AlbumRepository albumRepository, FigurinhaRepository figurinhaRepository) {
+        this.albumRepository = albumRepository;
+        this.figurinhaRepository = figurinhaRepository;
+    }
+
+
+    // --- Manutenção do Índice ---
+    // Carrega o índice depois que a aplicação sobe (em outra thread) e reconstrói todo dia para corrigir qualquer divergência
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${album.trocas.indice.cron:0 30 4 * * *}")
+    @Override
+    public void reconstruir() {
+        Set<Long> encontrados = new HashSet<>();
+        long ultimoUsuarioId = 0L;
+        while (true) {
+            List<Long> lote = albumRepository.findUsuarioIdsAposId(ultimoUsuarioId, PageRequest.ofSize(TAMANHO_LOTE));
+            if (lote.isEmpty()) {
+                break;
+            }
+            atualizar(lote);
+            encontrados.addAll(lote);
+            ultimoUsuarioId = lote.get(lote.size() - 1);
+        }
+
+        // Álbuns que sumiram do banco sem evento. Usuários criados depois da leitura (IDs maiores) ficam
+        lock.writeLock().lock();
+        try {
+            long ultimoLido = ultimoUsuarioId;
+            new ArrayList<>(posicaoPorUsuario.keySet()).stream()
+                    .filter(usuarioId -> usuarioId <= ultimoLido && !encontrados.contains(usuarioId))
+                    .forEach(this::remover);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String nome() {
+        return "indice-trocas";
+    }
+
+    // Relê do banco os totais por personagem dos usuários e substitui o estado deles no índice; quem não tem mais álbum sai.
+    // Depois do commit de uma alteração de álbum, é chamado pelo PipelineEventos com os usuários de um lote de eventos
+    @Override
+    public void atualizar(Collection<Long> usuarioIds) {
+        // A versão é lida ANTES dos totais: os totais são no mínimo tão novos quanto ela, então um estado nunca fica
+        // marcado com uma versão mais nova que os dados dele (toda alteração de figurinhas incrementa a versão do álbum)
+        Map<Long, EstadoAlbum> novos = new HashMap<>();
+        for (Object[] linha : albumRepository.findVersoesByUsuarioIds(usuarioIds)) {
+            Long usuarioId = (Long) linha[0];
+            novos.put(usuarioId, new EstadoAlbum(usuarioId, ((Number) linha[1]).longValue(), new BitSet(), new BitSet())); // Sem figurinhas = estado vazio
+        }
+
+        List<Object[]> totais = novos.isEmpty() ? List.of() : figurinhaRepository.somarQuantidadesPorPersonagemDosUsuarios(novos.keySet());
+        for (Object[] linha : totais) {
+            EstadoAlbum estado = novos.get((Long) linha[0]);
+            int personagem = ((Long) linha[1]).intValue();
+            long quantidade = ((Number) linha[2]).longValue();
+
+            estado.possuidos().set(personagem);
+            if (quantidade > 1) {
+                estado.repetidos().set(personagem);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            novos.forEach(this::substituirEstado);
+            usuarioIds.stream().filter(id -> !novos.containsKey(id)).forEach(this::remover);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Troca o estado de um usuário, tirando as marcas antigas de repetidas e colocando as novas (chamado com o lock de escrita).
+    // Uma reconstrução lenta e um evento podem ler o mesmo álbum em momentos diferentes: a versão do álbum decide qual é o mais novo
+    private void substituirEstado(Long usuarioId, EstadoAlbum novo) {
+        Integer posicao = posicaoPorUsuario.get(usuarioId);
+        if (posicao == null) {
+            posicao = posicoesLivres.isEmpty() ? estados.size() : posicoesLivres.pop();
+            posicaoPorUsuario.put(usuarioId, posicao);
+            if (posicao == estados.size()) {
+                estados.add(novo);
+            } else {
+                estados.set(posicao, novo);
+            }
+        } else {
+            EstadoAlbum antigo = estados.get(posicao);
+            if (antigo.versao() >= novo.versao()) {
+                return;
+            }
+            desmarcarRepetidas(antigo, posicao);
+            estados.set(posicao, novo);
+        }
+
+        for (int p = novo.repetidos().nextSetBit(0); p >= 0; p = novo.repetidos().nextSetBit(p + 1)) {
+            detentoresDeRepetidas.computeIfAbsent(p, chave -> new BitSet()).set(posicao);
+        }
+    }
+
+    // Tira o usuário do índice e libera a posição dele (chamado com o lock de escrita)
+    private void remover(Long usuarioId) {
+        Integer posicao = posicaoPorUsuario.remove(usuarioId);
+        if (posicao != null) {
+            desmarcarRepetidas(estados.get(posicao), posicao);
+            estados.set(posicao, null);
+            posicoesLivres.push(posicao);
+        }
+    }
+
+    private void desmarcarRepetidas(EstadoAlbum estado, int posicao) {
+        for (int p = estado.repetidos().nextSetBit(0); p >= 0; p = estado.repetidos().nextSetBit(p + 1)) {
+            detentoresDeRepetidas.get(p).clear(posicao);
+        }
+    }
+
+
+    // --- Sugestões ---
+    // Ordena os outros usuários pelo número de trocas que completam os dois álbuns e devolve os melhores
+    public List<SugestaoTrocaDTO> sugerirParceiros(Long usuarioId, int limite) {
+        lock.readLock().lock();
+        try {
+            Integer posicao = posicaoPorUsuario.get(usuarioId);
+            if (posicao == null || estados.get(posicao).repetidos().isEmpty()) {
+                return List.of(); // Sem repetidas não há o que oferecer em troca
+            }
+            EstadoAlbum usuario = estados.get(posicao);
+
+            // Candidatos: quem tem repetido algum personagem que falta no álbum do usuário (OR dos bitmaps de detentores)
+            BitSet candidatos = new BitSet();
+            detentoresDeRepetidas.forEach((personagem, detentores) -> {
+                if (!usuario.possuidos().get(personagem)) {
+                    candidatos.or(detentores);
+                }
+            });
+            candidatos.clear(posicao);
+
+            // Mantém só os "limite" melhores (o pior fica no topo da fila para sair primeiro).
+            // Aqui só se contam bits; as listas de personagens são montadas depois, apenas para os escolhidos.
+            PriorityQueue<Candidato> melhores = new PriorityQueue<>(ORDEM_CANDIDATOS);
+            for (int c = candidatos.nextSetBit(0); c >= 0; c = candidatos.nextSetBit(c + 1)) {
+                EstadoAlbum outro = estados.get(c);
+
+                int recebe = contarFaltantes(outro.repetidos(), usuario.possuidos()); // Repetidas dele que faltam no usuário
+                int oferece = contarFaltantes(usuario.repetidos(), outro.possuidos()); // Repetidas do usuário que faltam nele
+                if (oferece == 0) {
+                    continue; // A troca só ajudaria um dos lados
+                }
+
+                melhores.add(new Candidato(outro, Math.min(recebe, oferece), recebe));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+
+            List<Candidato> escolhidos = new ArrayList<>(melhores);
+            escolhidos.sort(ORDEM_CANDIDATOS.reversed()); // Melhor primeiro
+            return escolhidos.stream()
+                    .map(candidato -> montarSugestao(usuario, candidato))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Quantos personagens de "repetidos" não estão em "possuidos" (sem criar bitmaps novos)
+    private static int contarFaltantes(BitSet repetidos, BitSet possuidos) {
+        int total = 0;
+        for (int p = repetidos.nextSetBit(0); p >= 0; p = repetidos.nextSetBit(p + 1)) {
+            if (!possuidos.get(p)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    private static SugestaoTrocaDTO montarSugestao(EstadoAlbum usuario, Candidato candidato) {
+        BitSet recebe = (BitSet) candidato.estado().repetidos().clone();
+        recebe.andNot(usuario.possuidos());
+        BitSet oferece = (BitSet) usuario.repetidos().clone();
+        oferece.andNot(candidato.estado().possuidos());
+
+        return SugestaoTrocaDTO.builder()
+                .usuarioId(candidato.estado().usuarioId())
+                .trocasPossiveis(candidato.trocasPossiveis())
+                .personagensQueRecebe(recebe.stream().mapToObj(id -> (long) id).toList())
+                .personagensQueOferece(oferece.stream().mapToObj(id -> (long) id).toList())
+                .build();
+    }
+
+    // Mais trocas possíveis primeiro; depois quem tem mais para dar; depois o menor ID (ordem estável)
+    private static final Comparator<Candidato> ORDEM_CANDIDATOS = Comparator
+            .comparingInt(Candidato::trocasPossiveis)
+            .thenComparingInt(Candidato::podeDar)
+            .thenComparing(candidato -> candidato.estado().usuarioId(), Comparator.reverseOrder());
+
+    private record Candidato(EstadoAlbum estado, int trocasPossiveis, int podeDar) {
+    }
+
+
+    // Estado de um álbum no índice: versão do álbum lida, personagens possuídos e personagens com mais de uma cópia
+    private record EstadoAlbum(Long usuarioId, long versao, BitSet possuidos, BitSet repetidos) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.model.Raridade;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+// Essa classe sorteia o conteúdo dos pacotes: qual personagem sai e com qual raridade.
+// Os sorteios usam tabelas de alias (método de Vose): cada sorteio custa O(1), qualquer que seja o número de personagens ou de pesos.
+// Sem semente, cada thread usa o próprio ThreadLocalRandom (sem disputa entre threads e sem criar objetos Random).
+@Component // Anotação para marcar esta classe como um componente do Spring
+public class PackGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L; // Incremento do SplitMix64
+
+    // --- Configuração ---
+    private final Long semente;
+    private final Map<Long, Integer> pesosPersonagens;
+    private final String[] statusConhecidos; // Status com tabela própria, comparados sem diferenciar maiúsculas
+    private final TabelaAlias[] raridadesPorStatus; // raridadesPorStatus[i] = tabela do statusConhecidos[i]
+    private final TabelaAlias raridadesOutros;
+    private final Raridade[] raridades = Raridade.values();
+
+    // Tabela dos personagens: depende do total do catálogo, então é refeita quando o total muda
+    private volatile TabelaAlias personagens = TabelaAlias.montar(new double[0]);
+
+    // Construtor para injeção de dependências
+    public PackGenerator(ConfiguracaoPacotes configuracao) {
+        this.semente = configuracao.semente();
+        this.pesosPersonagens = configuracao.pesosPersonagens();
+
+        Map<String, Map<Raridade, Integer>> tabelas = configuracao.raridades();
+        this.statusConhecidos = tabelas.keySet().stream()
+                .filter(status -> !ConfiguracaoPacotes.OUTROS_STATUS.equalsIgnoreCase(status))
+                .toArray(String[]::new);
+        this.raridadesPorStatus = new TabelaAlias[statusConhecidos.length];
+        for (int i = 0; i < statusConhecidos.length; i++) {
+            raridadesPorStatus[i] = tabelaRaridades(tabelas.get(statusConhecidos[i]));
+        }
+        this.raridadesOutros = tabelaRaridades(tabelas.get(ConfiguracaoPacotes.OUTROS_STATUS));
+    }
+
+
+    // --- Gerador de números ---
+    // Gerador para UMA abertura de pacotes. Sem semente é o ThreadLocalRandom da thread atual.
+    // Com semente, o gerador vem só do que está gravado: semente + usuário + versão do álbum lida na transação.
+    // Toda alteração gravada incrementa a versão, então a mesma sequência de operações sorteia sempre os mesmos pacotes,
+    // em qualquer ordem de execução entre usuários; uma abertura desfeita (rollback, nova tentativa) não muda a versão nem os sorteios.
+    public RandomGenerator novoSorteio(Long usuarioId, long versaoAlbum) {
+        if (semente == null) {
+            return ThreadLocalRandom.current();
+        }
+        return new SplittableRandom(misturar(misturar(semente + usuarioId * GOLDEN_GAMMA) + versaoAlbum * GOLDEN_GAMMA));
+    }
+
+    public boolean isDeterministico() {
+        return semente != null;
+    }
+
+
+    // --- Sorteios ---
+    // Sorteia o ID de um personagem entre 1 e o total do catálogo, respeitando os pesos configurados
+    public long sortearPersonagem(RandomGenerator gerador, int totalPersonagens) {
+        return 1L + tabelaPersonagens(totalPersonagens).sortear(gerador);
+    }
+
+    // Sorteia a raridade a partir do status do personagem ("Alive", "Dead", "unknown"...)
+    public Raridade sortearRaridade(RandomGenerator gerador, String status) {
+        return raridades[tabelaDoStatus(status).sortear(gerador)];
+    }
+
+    private TabelaAlias tabelaDoStatus(String status) {
+        for (int i = 0; i < statusConhecidos.length; i++) {
+            if (statusConhecidos[i].equalsIgnoreCase(status)) {
+                return raridadesPorStatus[i];
+            }
+        }
+        return raridadesOutros;
+    }
+
+    private TabelaAlias tabelaPersonagens(int totalPersonagens) {
+        TabelaAlias atual = personagens;
+        if (atual.tamanho() == totalPersonagens) {
+            return atual;
+        }
+        synchronized (this) { // Só na primeira abertura e quando o catálogo muda de tamanho
+            if (personagens.tamanho() != totalPersonagens) {
+                double[] pesos = new double[totalPersonagens];
+                for (int i = 0; i < totalPersonagens; i++) {
+                    pesos[i] = pesosPersonagens.getOrDefault(i + 1L, 1);
+                }
+                personagens = TabelaAlias.montar(pesos);
+            }
+            return personagens;
+        }
+    }
+
+    private TabelaAlias tabelaRaridades(Map<Raridade, Integer> pesosPorRaridade) {
+        double[] pesos = new double[raridades.length];
+        pesosPorRaridade.forEach((raridade, peso) -> pesos[raridade.ordinal()] = peso);
+        return TabelaAlias.montar(pesos);
+    }
+
+    // Finalizador do SplitMix64: espalha os bits da semente
+    private static long misturar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+
+    // Tabela de alias (Vose): cada posição guarda a chance de ficar com ela mesma e, senão, a posição "alias".
+    // Um sorteio = uma posição uniforme + uma comparação.
+    static final class TabelaAlias {
+
+        private final double[] chances;
+        private final int[] alias;
+
+        private TabelaAlias(double[] chances, int[] alias) {
+            this.chances = chances;
+            this.alias = alias;
+        }
+
+        static TabelaAlias montar(double[] pesos) {
+            int n = pesos.length;
+            double total = 0;
+            for (double peso : pesos) {
+                if (peso < 0) throw new IllegalArgumentException("Os pesos do sorteio não podem ser negativos.");
+                total += peso;
+            }
+            if (n > 0 && total <= 0) throw new IllegalArgumentException("Pelo menos um peso do sorteio precisa ser positivo.");
+
+            double[] chances = new double[n];
+            int[] alias = new int[n];
+            double[] escalados = new double[n];
+            int[] pequenos = new int[n];
+            int[] grandes = new int[n];
+            int totalPequenos = 0;
+            int totalGrandes = 0;
+
+            // Pesos escalados para média 1: abaixo de 1 vão para "pequenos", o resto para "grandes"
+            for (int i = 0; i < n; i++) {
+                escalados[i] = pesos[i] * n / total;
+                if (escalados[i] < 1.0) {
+                    pequenos[totalPequenos++] = i;
+                } else {
+                    grandes[totalGrandes++] = i;
+                }
+            }
+
+            // Cada pequeno completa a sua posição com um pedaço de um grande
+            while (totalPequenos > 0 && totalGrandes > 0) {
+                int pequeno = pequenos[--totalPequenos];
+                int grande = grandes[--totalGrandes];
+                chances[pequeno] = escalados[pequeno];
+                alias[pequeno] = grande;
+                escalados[grande] = (escalados[grande] + escalados[pequeno]) - 1.0;
+                if (escalados[grande] < 1.0) {
+                    pequenos[totalPequenos++] = grande;
+                } else {
+                    grandes[totalGrandes++] = grande;
+                }
+            }
+            // O que sobrou (erros de arredondamento) fica com chance 1
+            while (totalGrandes > 0) {
+                chances[grandes[--totalGrandes]] = 1.0;
+            }
+            while (totalPequenos > 0) {
+                chances[pequenos[--totalPequenos]] = 1.0;
+            }
+            return new TabelaAlias(chances, alias);
+        }
+
+        int sortear(RandomGenerator gerador) {
+            int posicao = gerador.nextInt(chances.length);
+            return gerador.nextDouble() < chances[posicao] ? posicao : alias[posicao];
+        }
+
+        int tamanho() {
+            return chances.length;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.dto.PosicaoRankingDTO;
+import com.albumrickandmortyapi.event.ConsumidorAlbunsAlterados;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Essa classe mantém em memória o ranking dos colecionadores pelo número de personagens distintos no álbum.
+// O ranking é atualizado a cada alteração de álbum (pacote aberto, troca aceita, figurinha removida, usuário excluído),
+// então nenhuma consulta de ranking precisa calcular o progresso de todos os usuários.
+// - Top N: lista ordenada (skip list concorrente), lida sem lock: O(log n + N)
+// - Posição de um usuário: árvore de Fenwick com quantos álbuns têm cada número de personagens: O(log P)
+@Service // Anotação para marcar esta classe como um serviço do Spring
+public class RankingColecionadoresService implements ConsumidorAlbunsAlterados {
+
+    private static final int TAMANHO_LOTE = 500; // Quantos álbuns são carregados por consulta na reconstrução
+    private static final int TOP_MAXIMO = 100;
+    private static final int MAXIMO_PERSONAGENS = 8192; // Limite do bitmap de personagens do álbum (1024 bytes)
+
+    // --- Injeção de Dependências ---
+    private final AlbumRepository albumRepository;
+    private final CatalogoPersonagensService catalogoPersonagens;
+
+    // --- Ranking ---
+    // Mais personagens primeiro; no empate, o álbum mais antigo (menor ID) aparece antes
+    private static final Comparator<Entrada> ORDEM_RANKING = Comparator
+            .comparingInt(Entrada::personagensDistintos).reversed()
+            .thenComparing(Entrada::albumId);
+
+    private final ConcurrentSkipListSet<Entrada> ranking = new ConcurrentSkipListSet<>(ORDEM_RANKING);
+    // As escritas (e as consultas de posição) passam pelo lock; o top N lê só a skip list
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entrada> entradaPorUsuario = new HashMap<>(); // usuário -> entrada atual no ranking
+    private final ArvoreFenwick albunsPorPersonagens = new ArvoreFenwick(MAXIMO_PERSONAGENS + 1); // personagens distintos -> álbuns
+
+    // Construtor para injeção de dependências
+    public RankingColecionadoresService(AlbumRepository albumRepository, CatalogoPersonagensService catalogoPersonagens) {
+        this.albumRepository = albumRepository;
+        this.catalogoPersonagens = catalogoPersonagens;
+    }
+
+
+    // --- Manutenção do Ranking ---
+    // Carrega o ranking depois que a aplicação sobe (em outra thread) e reconstrói todo dia para corrigir qualquer divergência
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${album.ranking.cron:0 45 4 * * *}")
+    @Override
+    public void reconstruir() {
+        Set<Long> encontrados = new HashSet<>();
+        long ultimoUsuarioId = 0L;
+        while (true) {
+            List<Object[]> lote = albumRepository.findRankingAposUsuarioId(ultimoUsuarioId, PageRequest.ofSize(TAMANHO_LOTE));
+            if (lote.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                lote.forEach(linha -> substituir(entradaDe(linha)));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lote.forEach(linha -> encontrados.add((Long) linha[0]));
+            ultimoUsuarioId = (Long) lote.get(lote.size() - 1)[0];
+        }
+
+        // Álbuns que sumiram do banco sem evento. Usuários criados depois da leitura (IDs maiores) ficam
+        lock.writeLock().lock();
+        try {
+            long ultimoLido = ultimoUsuarioId;
+            new ArrayList<>(entradaPorUsuario.keySet()).stream()
+                    .filter(usuarioId -> usuarioId <= ultimoLido && !encontrados.contains(usuarioId))
+                    .forEach(this::remover);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String nome() {
+        return "ranking";
+    }
+
+    // Relê do banco o número de personagens dos usuários (uma consulta); quem não tem mais álbum sai do ranking.
+    // Depois do commit de uma alteração de álbum, é chamado pelo PipelineEventos com os usuários de um lote de eventos
+    @Override
+    public void atualizar(Collection<Long> usuarioIds) {
+        List<Object[]> linhas = albumRepository.findRankingByUsuarioIds(usuarioIds);
+
+        lock.writeLock().lock();
+        try {
+            Set<Long> semAlbum = new HashSet<>(usuarioIds);
+            for (Object[] linha : linhas) {
+                Entrada entrada = entradaDe(linha);
+                substituir(entrada);
+                semAlbum.remove(entrada.usuarioId());
+            }
+            semAlbum.forEach(this::remover);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Troca a entrada do usuário (chamado com o lock de escrita).
+    // Duas atualizações do mesmo álbum podem chegar fora de ordem: a versão do álbum decide qual é a mais nova
+    private void substituir(Entrada nova) {
+        Entrada antiga = entradaPorUsuario.get(nova.usuarioId());
+        if (antiga != null) {
+            if (antiga.versao() >= nova.versao()) {
+                return;
+            }
+            ranking.remove(antiga);
+            albunsPorPersonagens.somar(antiga.personagensDistintos(), -1);
+        }
+        entradaPorUsuario.put(nova.usuarioId(), nova);
+        ranking.add(nova);
+        albunsPorPersonagens.somar(nova.personagensDistintos(), 1);
+    }
+
+    // Tira o usuário do ranking (chamado com o lock de escrita)
+    private void remover(Long usuarioId) {
+        Entrada antiga = entradaPorUsuario.remove(usuarioId);
+        if (antiga != null) {
+            ranking.remove(antiga);
+            albunsPorPersonagens.somar(antiga.personagensDistintos(), -1);
+        }
+    }
+
+    private static Entrada entradaDe(Object[] linha) {
+        int personagens = Math.min(((Number) linha[2]).intValue(), MAXIMO_PERSONAGENS);
+        return new Entrada((Long) linha[0], (Long) linha[1], personagens, ((Number) linha[3]).longValue());
+    }
+
+
+    // --- Consultas ---
+    // Os N álbuns mais completos. Lido sem lock: durante uma atualização, o álbum alterado pode faltar por um instante
+    public List<PosicaoRankingDTO> listarTop(int top) {
+        int limite = Math.max(1, Math.min(top, TOP_MAXIMO));
+        List<PosicaoRankingDTO> resultado = new ArrayList<>(limite);
+
+        Iterator<Entrada> iterador = ranking.iterator();
+        int posicao = 0;
+        int personagensAnterior = -1;
+        while (iterador.hasNext() && resultado.size() < limite) {
+            Entrada entrada = iterador.next();
+            if (entrada.personagensDistintos() != personagensAnterior) {
+                posicao = resultado.size() + 1; // Empatados dividem a posição do primeiro do grupo
+                personagensAnterior = entrada.personagensDistintos();
+            }
+            resultado.add(montarPosicao(entrada, posicao));
+        }
+        return resultado;
+    }
+
+    // Posição de um usuário: 1 + quantos álbuns têm mais personagens que o dele (vazio se o usuário não está no ranking)
+    public Optional<PosicaoRankingDTO> buscarPosicao(Long usuarioId) {
+        lock.readLock().lock();
+        try {
+            Entrada entrada = entradaPorUsuario.get(usuarioId);
+            if (entrada == null) {
+                return Optional.empty();
+            }
+            int acima = albunsPorPersonagens.total() - albunsPorPersonagens.somarAte(entrada.personagensDistintos());
+            return Optional.of(montarPosicao(entrada, acima + 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PosicaoRankingDTO montarPosicao(Entrada entrada, int posicao) {
+        int totalPersonagens = catalogoPersonagens.getTotalPersonagens();
+        double progresso = totalPersonagens == 0 ? 0.0
+                : Math.round(((double) entrada.personagensDistintos() / totalPersonagens) * 100.0 * 100.0) / 100.0;
+        return PosicaoRankingDTO.builder()
+                .posicao(posicao)
+                .usuarioId(entrada.usuarioId())
+                .personagensDistintos(entrada.personagensDistintos())
+                .progressoPercentual(progresso)
+                .build();
+    }
+
+
+    // Um álbum no ranking
+    private record Entrada(Long usuarioId, Long albumId, int personagensDistintos, long versao) {
+    }
+
+    // Árvore de Fenwick (Binary Indexed Tree): quantos álbuns têm cada número de personagens distintos.
+    // Somar em um valor e contar os álbuns com até N personagens custam O(log P), com P = maior número possível de personagens
+    static final class ArvoreFenwick {
+
+        private final int[] arvore;
+        private int total;
+
+        ArvoreFenwick(int tamanho) {
+            this.arvore = new int[tamanho + 1]; // Índices de 1 a tamanho (o valor v fica no índice v + 1)
+        }
+
+        void somar(int valor, int quantidade) {
+            for (int i = valor + 1; i < arvore.length; i += i & -i) {
+                arvore[i] += quantidade;
+            }
+            total += quantidade;
+        }
+
+        // Quantos álbuns têm de 0 até "valor" personagens
+        int somarAte(int valor) {
+            int soma = 0;
+            for (int i = Math.min(valor + 1, arvore.length - 1); i > 0; i -= i & -i) {
+                soma += arvore[i];
+            }
+            return soma;
+        }
+
+        int total() {
+            return total;
+        }
+    }
+}
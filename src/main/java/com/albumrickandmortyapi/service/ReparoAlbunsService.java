@@ -0,0 +1,115 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.model.Album;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import com.albumrickandmortyapi.repository.FigurinhaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Essa classe recalcula o bitmap de personagens (e o contador de personagens distintos) de cada álbum
+// a partir da tabela de figurinhas. Serve para preencher álbuns antigos e corrigir qualquer divergência.
+@Service // Anotação para marcar esta classe como um serviço do Spring
+public class ReparoAlbunsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReparoAlbunsService.class);
+
+    private static final int TAMANHO_LOTE = 500; // Quantos álbuns são reparados por transação
+    private static final int TENTATIVAS_LOTE = 3; // Quantas vezes um lote é refeito quando um usuário altera um dos álbuns junto
+
+    // --- Injeção de Dependências ---
+    private final AlbumRepository albumRepository;
+    private final FigurinhaRepository figurinhaRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Construtor para injeção de dependências
+    public ReparoAlbunsService(AlbumRepository albumRepository, FigurinhaRepository figurinhaRepository, TransactionTemplate transactionTemplate) {
+        this.albumRepository = albumRepository;
+        this.figurinhaRepository = figurinhaRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Roda uma vez depois que a aplicação sobe (em outra thread) e depois todo dia no horário configurado
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${album.reparo.cron:0 0 4 * * *}")
+    public void recalcularContadores() {
+        long ultimoId = 0L;
+        int albunsConferidos = 0;
+        int lotesComFalha = 0;
+        int albunsComFalha = 0;
+
+        // Percorre os álbuns em lotes, cada lote na sua própria transação.
+        // Um lote que falha é pulado: os outros continuam, e ele é conferido de novo no próximo reparo
+        while (true) {
+            List<Long> albumIds = albumRepository.findIdsAposId(ultimoId, PageRequest.ofSize(TAMANHO_LOTE));
+            if (albumIds.isEmpty()) {
+                break;
+            }
+            if (repararLoteComTentativas(albumIds)) {
+                albunsConferidos += albumIds.size();
+            } else {
+                lotesComFalha++;
+                albunsComFalha += albumIds.size();
+            }
+            ultimoId = albumIds.get(albumIds.size() - 1);
+        }
+
+        if (lotesComFalha > 0) {
+            log.warn("Reparo dos álbuns: {} álbuns conferidos, {} lotes ({} álbuns) com falha", albunsConferidos, lotesComFalha, albunsComFalha);
+        } else {
+            log.info("Reparo dos álbuns: {} álbuns conferidos", albunsConferidos);
+        }
+    }
+
+    // Repara o lote na sua transação. Um conflito de versão (o usuário abriu um pacote durante o reparo) refaz o lote,
+    // lendo os álbuns de novo; retorna false se o lote não pôde ser reparado
+    private boolean repararLoteComTentativas(List<Long> albumIds) {
+        for (int tentativa = 1; tentativa <= TENTATIVAS_LOTE; tentativa++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> repararLote(albumIds));
+                return true;
+            } catch (OptimisticLockingFailureException e) {
+                if (tentativa == TENTATIVAS_LOTE) {
+                    log.warn("Reparo dos álbuns {} a {}: conflito de versão em todas as {} tentativas",
+                            albumIds.get(0), albumIds.get(albumIds.size() - 1), TENTATIVAS_LOTE);
+                }
+            } catch (Exception e) {
+                log.warn("Reparo dos álbuns {} a {} falhou: {}", albumIds.get(0), albumIds.get(albumIds.size() - 1), e.getMessage());
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Repara um lote de álbuns com uma única consulta às figurinhas
+    private void repararLote(List<Long> albumIds) {
+        List<Album> albuns = albumRepository.findAllById(albumIds);
+        Map<Long, BitSet> bitmaps = new HashMap<>();
+        for (Object[] linha : figurinhaRepository.findPersonagensPorAlbum(albumIds)) {
+            Long albumId = (Long) linha[0];
+            Long idPersonagem = (Long) linha[1];
+            bitmaps.computeIfAbsent(albumId, id -> new BitSet()).set(idPersonagem.intValue());
+        }
+
+        // Só grava os álbuns cujo bitmap realmente divergiu
+        for (Album album : albuns) {
+            BitSet correto = bitmaps.getOrDefault(album.getId(), new BitSet());
+            if (!correto.equals(album.bitmapPersonagens()) || correto.cardinality() != album.getPersonagensDistintos()) {
+                album.atualizarBitmapPersonagens(correto);
+            }
+        }
+    }
+}
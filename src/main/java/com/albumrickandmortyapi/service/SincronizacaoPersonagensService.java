@@ -0,0 +1,197 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.client.RickAndMortyClient;
+import com.albumrickandmortyapi.dto.CharacterDTO;
+import com.albumrickandmortyapi.dto.RootCharacterResponseDTO;
+import com.albumrickandmortyapi.model.PaginaPersonagens;
+import com.albumrickandmortyapi.model.Personagem;
+import com.albumrickandmortyapi.repository.PaginaPersonagensRepository;
+import com.albumrickandmortyapi.repository.PersonagemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+// Essa classe sincroniza a tabela local de personagens com a API do Rick and Morty.
+// A sincronização é incremental: cada página tem um checksum, e as páginas que não mudaram não são regravadas.
+@Service // Anotação para marcar esta classe como um serviço do Spring
+public class SincronizacaoPersonagensService {
+
+    private static final Logger log = LoggerFactory.getLogger(SincronizacaoPersonagensService.class);
+
+    // --- Injeção de Dependências ---
+    private final RickAndMortyClient rickAndMortyClient;
+    private final PersonagemRepository personagemRepository;
+    private final PaginaPersonagensRepository paginaPersonagensRepository;
+    private final CatalogoPersonagensService catalogoPersonagens;
+    private final TaskScheduler taskScheduler; // Agenda as novas tentativas depois que as da inicialização se esgotam
+    private final boolean sincronizarNaInicializacao;
+    private final int tentativasInicializacao;
+    private final Duration esperaInicial;
+    private final Duration esperaMaxima;
+
+    // Construtor para injeção de dependências
+    public SincronizacaoPersonagensService(RickAndMortyClient rickAndMortyClient, PersonagemRepository personagemRepository,
+                                           PaginaPersonagensRepository paginaPersonagensRepository, CatalogoPersonagensService catalogoPersonagens,
+                                           TaskScheduler taskScheduler,
+                                           @Value("${album.catalogo.carregar-na-inicializacao:true}") boolean sincronizarNaInicializacao,
+                                           @Value("${album.catalogo.inicializacao.tentativas:5}") int tentativasInicializacao,
+                                           @Value("${album.catalogo.inicializacao.espera-inicial:PT2S}") Duration esperaInicial,
+                                           @Value("${album.catalogo.inicializacao.espera-maxima:PT1M}") Duration esperaMaxima) {
+        this.rickAndMortyClient = rickAndMortyClient;
+        this.personagemRepository = personagemRepository;
+        this.paginaPersonagensRepository = paginaPersonagensRepository;
+        this.catalogoPersonagens = catalogoPersonagens;
+        this.taskScheduler = taskScheduler;
+        this.sincronizarNaInicializacao = sincronizarNaInicializacao;
+        this.tentativasInicializacao = tentativasInicializacao;
+        this.esperaInicial = esperaInicial;
+        this.esperaMaxima = esperaMaxima;
+    }
+
+
+    // --- Inicialização Assíncrona ---
+    // Roda em outra thread depois que a aplicação subiu, então o servidor começa a escutar sem esperar o banco nem a API.
+    // Enquanto o catálogo não fica pronto, o health de readiness (CatalogoHealthIndicator) segura o tráfego.
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarCatalogo() {
+        catalogoPersonagens.recarregar(); // Normalmente a tabela local já tem tudo e isso leva poucos milissegundos
+
+        // Na primeira subida (tabela vazia) é preciso buscar tudo na API, com um número limitado de tentativas
+        if (catalogoPersonagens.isPronto() || !sincronizarNaInicializacao) {
+            return;
+        }
+
+        Duration espera = esperaInicial;
+        for (int tentativa = 1; tentativa <= tentativasInicializacao; tentativa++) {
+            try {
+                sincronizarPaginas();
+                catalogoPersonagens.recarregar();
+                return;
+            } catch (Exception e) {
+                log.warn("Tentativa {} de {} de carregar os personagens da API falhou: {}", tentativa, tentativasInicializacao, e.getMessage());
+            }
+
+            if (tentativa < tentativasInicializacao) {
+                try {
+                    Thread.sleep(espera.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt(); // Aplicação desligando: desiste da inicialização
+                    return;
+                }
+                // Backoff exponencial: dobra a espera a cada falha, até o limite configurado
+                espera = espera.multipliedBy(2).compareTo(esperaMaxima) > 0 ? esperaMaxima : espera.multipliedBy(2);
+            }
+        }
+
+        // Sem catálogo a aplicação não recebe tráfego: em vez de esperar a sincronização agendada (horas depois),
+        // agenda uma nova tentativa na espera máxima, sem prender a thread do @Async
+        agendarNovaTentativa();
+    }
+
+    private void agendarNovaTentativa() {
+        log.warn("Não foi possível carregar os personagens da API. Nova tentativa em {}s.", esperaMaxima.toSeconds());
+        taskScheduler.schedule(this::tentarCarregarCatalogo, Instant.now().plus(esperaMaxima));
+    }
+
+    // Reagendada até o catálogo ficar pronto (a sincronização agendada pode ter carregado tudo antes)
+    private void tentarCarregarCatalogo() {
+        if (catalogoPersonagens.isPronto()) {
+            return;
+        }
+        try {
+            sincronizarPaginas();
+            catalogoPersonagens.recarregar();
+        } catch (Exception e) {
+            log.warn("Erro ao carregar os personagens da API: {}", e.getMessage());
+        }
+        if (!catalogoPersonagens.isPronto()) {
+            agendarNovaTentativa();
+        }
+    }
+
+
+    // --- Sincronização ---
+    // Roda em segundo plano, conferindo todas as páginas da API e gravando só as que mudaram
+    @Scheduled(fixedDelayString = "${album.catalogo.intervalo-atualizacao:PT6H}", initialDelayString = "${album.catalogo.intervalo-atualizacao:PT6H}")
+    public void sincronizar() {
+        try {
+            int paginasAlteradas = sincronizarPaginas();
+
+            // Só recarrega o catálogo em memória se alguma página realmente mudou
+            if (paginasAlteradas > 0) {
+                catalogoPersonagens.recarregar();
+            }
+        } catch (Exception e) {
+            // Se der erro, mantém o que já está no banco
+            log.warn("Erro ao sincronizar os personagens da API: {}", e.getMessage());
+        }
+    }
+
+    // Percorre todas as páginas da API e retorna quantas foram regravadas
+    private int sincronizarPaginas() {
+        RootCharacterResponseDTO primeiraPagina = rickAndMortyClient.buscarPaginaPersonagens(1);
+        int totalPaginas = primeiraPagina.getInfo().getPages();
+
+        int paginasAlteradas = sincronizarPagina(1, primeiraPagina.getResults()) ? 1 : 0;
+        for (int numero = 2; numero <= totalPaginas; numero++) {
+            List<CharacterDTO> personagens = rickAndMortyClient.buscarPaginaPersonagens(numero).getResults();
+            if (sincronizarPagina(numero, personagens)) {
+                paginasAlteradas++;
+            }
+        }
+        return paginasAlteradas;
+    }
+
+    // Grava a página se o checksum mudou. Os personagens são salvos antes do checksum:
+    // se algo falhar no meio, a página continua com o checksum antigo e é regravada na próxima vez.
+    private boolean sincronizarPagina(int numero, List<CharacterDTO> personagens) {
+        String checksum = calcularChecksum(personagens);
+        LocalDateTime agora = LocalDateTime.now();
+
+        PaginaPersonagens pagina = paginaPersonagensRepository.findById(numero)
+                .orElseGet(() -> new PaginaPersonagens(numero, null, null, null));
+
+        boolean alterada = !checksum.equals(pagina.getChecksum());
+        if (alterada) {
+            personagemRepository.saveAll(personagens.stream()
+                    .map(p -> new Personagem(p.getId(), p.getName(), p.getStatus(), p.getSpecies()))
+                    .toList());
+            pagina.setChecksum(checksum);
+            pagina.setUltimaAlteracao(agora);
+        }
+
+        pagina.setUltimaSincronizacao(agora);
+        paginaPersonagensRepository.save(pagina);
+        return alterada;
+    }
+
+    // Checksum SHA-256 dos campos que guardamos de cada personagem da página
+    private String calcularChecksum(List<CharacterDTO> personagens) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (CharacterDTO p : personagens) {
+                String linha = p.getId() + "|" + p.getName() + "|" + p.getStatus() + "|" + p.getSpecies() + "\n";
+                digest.update(linha.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 não disponível na JVM", e);
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.albumrickandmortyapi.service;
 
 import com.albumrickandmortyapi.dto.DetalheTrocaDTO;
+import com.albumrickandmortyapi.dto.PaginaCursorDTO;
 import com.albumrickandmortyapi.dto.PropostaTrocaDTO;
+import com.albumrickandmortyapi.dto.ResumoTrocaDTO;
+import com.albumrickandmortyapi.dto.SugestaoTrocaDTO;
+import com.albumrickandmortyapi.event.AlbumAlteradoEvent;
+import com.albumrickandmortyapi.metricas.MetricasAlbum;
 import com.albumrickandmortyapi.model.Album;
 import com.albumrickandmortyapi.model.Figurinha;
 import com.albumrickandmortyapi.model.PropostaTroca;
@@ -9,7 +14,17 @@ import com.albumrickandmortyapi.model.Usuario;
 import com.albumrickandmortyapi.repository.FigurinhaRepository;
 import com.albumrickandmortyapi.repository.PropostaTrocaRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
 @Service // Anotação para marcar esta classe como um serviço do Spring
 public class TrocaService { // Serviço para gerenciar propostas de troca entre usuários
@@ -18,17 +33,34 @@ public class TrocaService { // Serviço para gerenciar propostas de troca entre
     private final PropostaTrocaRepository propostaTrocaRepository; // Repositório para acessar dados de PropostaTroca
     private final UsuarioService usuarioService; // Serviço para gerenciar usuários
     private final FigurinhaRepository figurinhaRepository; // Repositório para acessar dados de Figurinha
+    private final IndiceTrocasService indiceTrocas; // Índice em memória usado nas sugestões de troca
+    private final ApplicationEventPublisher eventPublisher; // Publica os eventos de alteração de álbum
+    private final TransactionTemplate transactionTemplate; // Cada tentativa de aceite roda na sua própria transação
+    private final int tentativasAceite; // Quantas vezes o aceite é tentado quando outra troca mexe nas mesmas pilhas
+    private final MetricasAlbum metricas; // Timers de proposta e aceite (commit incluído)
+
+    private static final int TAMANHO_MAXIMO_PAGINA = 500;
 
     // Construtor para injeção de dependências
-    public TrocaService(PropostaTrocaRepository propostaTrocaRepository, UsuarioService usuarioService, FigurinhaRepository figurinhaRepository) {
+    public TrocaService(PropostaTrocaRepository propostaTrocaRepository, UsuarioService usuarioService, FigurinhaRepository figurinhaRepository,
+                        IndiceTrocasService indiceTrocas, ApplicationEventPublisher eventPublisher, TransactionTemplate transactionTemplate,
+                        @Value("${album.trocas.tentativas-aceite:3}") int tentativasAceite, MetricasAlbum metricas) {
         this.propostaTrocaRepository = propostaTrocaRepository;
         this.usuarioService = usuarioService;
         this.figurinhaRepository = figurinhaRepository;
+        this.indiceTrocas = indiceTrocas;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.tentativasAceite = tentativasAceite;
+        this.metricas = metricas;
     }
 
     // 1. Criar Proposta (AGORA RETORNA DetalheTrocaDTO)
-    @Transactional
     public DetalheTrocaDTO proporTroca(PropostaTrocaDTO dto) { // Retorna DTO
+        return metricas.medir(MetricasAlbum.PROPOSTA_TROCA, () -> transactionTemplate.execute(status -> proporTrocaNaTransacao(dto)));
+    }
+
+    private DetalheTrocaDTO proporTrocaNaTransacao(PropostaTrocaDTO dto) {
         // Busca entidades envolvidas na proposta
         Usuario ofertante = usuarioService.buscarUsuarioPorId(dto.getOfertanteId());
         Usuario receptor = usuarioService.buscarUsuarioPorId(dto.getReceptorId());
@@ -48,6 +80,10 @@ public class TrocaService { // Serviço para gerenciar propostas de troca entre
         if (!desejada.getAlbum().getId().equals(receptor.getAlbum().getId())) {
             throw new RuntimeException("Figurinha desejada não pertence ao receptor.");
         }
+        // A pilha precisa ter pelo menos uma cópia para entrar na troca
+        if (oferecida.getQuantidade() < 1 || desejada.getQuantidade() < 1) {
+            throw new RuntimeException("Figurinha sem cópias disponíveis para troca.");
+        }
 
         PropostaTroca proposta = new PropostaTroca(); // Cria nova entidade PropostaTroca
         proposta.setUsuarioOfertante(ofertante); // Define ofertante
@@ -58,15 +94,36 @@ public class TrocaService { // Serviço para gerenciar propostas de troca entre
 
         proposta = propostaTrocaRepository.save(proposta); // Salva a entidade
 
-        // Mapeia e retorna o DTO (já carregado dentro do @Transactional)
+        // Mapeia e retorna o DTO (ainda dentro da transação)
         return DetalheTrocaDTO.fromEntity(proposta);
     }
 
 
     // 2. Aceitar Proposta
-    @Transactional // Garante que todas as operações dentro deste método sejam atômicas( atomicas é quando todas as operações são concluídas com sucesso ou nenhuma é aplicada)
+    // Sem locks no banco: as pilhas, os álbuns e a proposta têm @Version. Se outra transação alterou alguma delas
+    // no meio do caminho, o commit falha com conflito e o aceite é refeito do zero com os dados novos.
     public DetalheTrocaDTO aceitarTroca(Long propostaId, Long usuarioReceptorId) {
-        PropostaTroca proposta = propostaTrocaRepository.findById(propostaId)// Busca a proposta pelo ID
+        return metricas.medir(MetricasAlbum.ACEITE_TROCA, () -> aceitarTrocaComTentativas(propostaId, usuarioReceptorId));
+    }
+
+    private DetalheTrocaDTO aceitarTrocaComTentativas(Long propostaId, Long usuarioReceptorId) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                // Cada tentativa é uma transação nova (atomica: todas as operações são concluídas com sucesso ou nenhuma é aplicada)
+                return transactionTemplate.execute(status -> aceitarTrocaUmaVez(propostaId, usuarioReceptorId));
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // Conflito de versão, ou duas transações criando a mesma pilha no mesmo álbum
+                metricas.contarConflitoAceite();
+                if (tentativa >= tentativasAceite) {
+                    throw new RuntimeException("Não foi possível aceitar a proposta por causa de outras trocas simultâneas. Tente novamente.");
+                }
+            }
+        }
+    }
+
+    private DetalheTrocaDTO aceitarTrocaUmaVez(Long propostaId, Long usuarioReceptorId) {
+        // Busca a proposta com as figurinhas e os álbuns na mesma consulta (tudo isso é alterado logo abaixo)
+        PropostaTroca proposta = propostaTrocaRepository.findComFigurinhasById(propostaId)
                 .orElseThrow(() -> new RuntimeException("Proposta não encontrada.")); // Lança exceção se não encontrada
 
         // Valida se o usuário receptor é o mesmo que está tentando aceitar a proposta
@@ -80,18 +137,100 @@ public class TrocaService { // Serviço para gerenciar propostas de troca entre
         Figurinha oferecida = proposta.getFigurinhaOferecida(); // Figurinha oferecida na proposta
         Figurinha desejada = proposta.getFigurinhaDesejada(); // Figurinha desejada na proposta
 
-        // 1. Realiza a troca dos ÁLBUNS
-        Album albumOfertante = oferecida.getAlbum();
+        // As cópias podem ter saído da pilha depois que a proposta foi feita (outra troca, remoção)
+        if (oferecida.getQuantidade() < 1 || desejada.getQuantidade() < 1) {
+            throw new RuntimeException("Figurinha da proposta não está mais disponível.");
+        }
+
+        Album albumOfertante = oferecida.getAlbum(); // Álbum de quem propôs
+        Album albumReceptor = desejada.getAlbum(); // Álbum de quem está aceitando
 
+        // Atualiza o bitmap e o contador de personagens dos dois álbuns ANTES de mover as cópias
+        atualizarBitmapPersonagens(albumOfertante, oferecida.getIdPersonagemApi(), desejada.getIdPersonagemApi());
+        atualizarBitmapPersonagens(albumReceptor, desejada.getIdPersonagemApi(), oferecida.getIdPersonagemApi());
 
-        oferecida.setAlbum(desejada.getAlbum()); // Ofertada vai para o álbum do Receptor
-        desejada.setAlbum(albumOfertante);       // Desejada vai para o álbum do Ofertante
+        // 1. Move UMA cópia de cada lado: sai da pilha de origem e entra na pilha equivalente do outro álbum
+        moverCopia(oferecida, albumReceptor); // Ofertada vai para o álbum do Receptor
+        moverCopia(desejada, albumOfertante); // Desejada vai para o álbum do Ofertante
 
         proposta.setStatus("ACEITA"); // Atualiza o status da proposta para ACEITA
         proposta = propostaTrocaRepository.save(proposta); // Salva o novo estado
 
-        // Mapeia e retorna o DTO (já carregado dentro do @Transactional)
-        return DetalheTrocaDTO.fromEntity(proposta);
+        // Pilhas que ficaram sem cópias não podem mais ser trocadas: cancela as outras propostas pendentes com elas em um só UPDATE
+        List<Long> pilhasVazias = new ArrayList<>(2);
+        if (oferecida.getQuantidade() == 0) pilhasVazias.add(oferecida.getId());
+        if (desejada.getQuantidade() == 0) pilhasVazias.add(desejada.getId());
+        if (!pilhasVazias.isEmpty()) {
+            propostaTrocaRepository.cancelarPendentesComFigurinhas(propostaId, pilhasVazias);
+        }
+
+        // Os dois álbuns mudaram: índice de trocas e ranking releem os dois depois do commit, fora da requisição (o ID do ofertante vem do proxy, sem consulta)
+        eventPublisher.publishEvent(AlbumAlteradoEvent.de(proposta.getUsuarioOfertante().getId(), usuarioReceptorId));
+
+        // Monta o DTO com uma consulta só (os nomes dos usuários vêm pelo join, sem carregar as entidades)
+        return propostaTrocaRepository.findDetalheById(propostaId).orElseThrow();
+    }
+
+    // Tira uma cópia da pilha de origem e soma na pilha do mesmo personagem e raridade no álbum de destino (criando se não existir)
+    private void moverCopia(Figurinha origem, Album destino) {
+        Figurinha pilhaDestino = figurinhaRepository
+                .findByAlbumIdAndIdPersonagemApiAndRaridade(destino.getId(), origem.getIdPersonagemApi(), origem.getRaridade())
+                .orElseGet(() -> {
+                    Figurinha nova = new Figurinha();
+                    nova.setIdPersonagemApi(origem.getIdPersonagemApi());
+                    nova.setNomePersonagem(origem.getNomePersonagem());
+                    nova.setRaridade(origem.getRaridade());
+                    nova.setQuantidade(0);
+                    nova.setAlbum(destino);
+                    return figurinhaRepository.save(nova);
+                });
+
+        origem.setQuantidade(origem.getQuantidade() - 1);
+        pilhaDestino.setQuantidade(pilhaDestino.getQuantidade() + 1);
+    }
+
+    // O álbum entrega uma cópia do personagem "perdido" e recebe uma do personagem "ganho".
+    // O bit do personagem perdido só é desligado se aquela era a única cópia; o do ganho é sempre ligado.
+    private void atualizarBitmapPersonagens(Album album, Long personagemPerdido, Long personagemGanho) {
+        BitSet bitmap = album.bitmapPersonagens();
+
+        if (!personagemPerdido.equals(personagemGanho)
+                && figurinhaRepository.somarQuantidadePorPersonagem(album.getId(), personagemPerdido) == 1) {
+            bitmap.clear(personagemPerdido.intValue());
+        }
+        bitmap.set(personagemGanho.intValue());
+
+        album.atualizarBitmapPersonagens(bitmap); // Também atualiza o contador de personagens distintos
+    }
+
+    // 3. Sugerir Parceiros de Troca
+    // Usa o índice em memória: nenhum álbum é lido do banco na hora da consulta
+    public List<SugestaoTrocaDTO> sugerirTrocas(Long usuarioId, int limite) {
+        usuarioService.buscarUsuarioPorId(usuarioId); // Lança exceção se o usuário não existir
+        return indiceTrocas.sugerirParceiros(usuarioId, Math.max(1, Math.min(limite, 100)));
+    }
+
+    // 4. Caixas de Entrada e de Saída
+    // Propostas recebidas pelo usuário com o status pedido, paginadas por cursor ("aposId" = ID da última proposta da página anterior, 0 na primeira)
+    public PaginaCursorDTO<ResumoTrocaDTO> listarRecebidas(Long usuarioId, String status, Long aposId, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        List<ResumoTrocaDTO> propostas = propostaTrocaRepository.findRecebidas(usuarioId, status.toUpperCase(), aposId, PageRequest.ofSize(tamanhoPagina));
+        return montarPagina(usuarioId, propostas, tamanhoPagina);
+    }
+
+    // Propostas enviadas pelo usuário com o status pedido, paginadas por cursor
+    public PaginaCursorDTO<ResumoTrocaDTO> listarEnviadas(Long usuarioId, String status, Long aposId, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        List<ResumoTrocaDTO> propostas = propostaTrocaRepository.findEnviadas(usuarioId, status.toUpperCase(), aposId, PageRequest.ofSize(tamanhoPagina));
+        return montarPagina(usuarioId, propostas, tamanhoPagina);
+    }
+
+    private PaginaCursorDTO<ResumoTrocaDTO> montarPagina(Long usuarioId, List<ResumoTrocaDTO> propostas, int tamanhoPagina) {
+        // Página vazia pode ser fim da lista ou usuário inexistente: só nesse caso consulta o usuário
+        if (propostas.isEmpty()) {
+            usuarioService.buscarUsuarioPorId(usuarioId); // Lança exceção se o usuário não existir
+        }
+        return PaginaCursorDTO.de(propostas, tamanhoPagina, ResumoTrocaDTO::getId);
     }
 
     @Transactional // Garante que todas as operações dentro deste método sejam atômicas ( atomicas é quando todas as operações são concluídas com sucesso ou nenhuma é aplicada)
@@ -105,17 +244,27 @@ public class TrocaService { // Serviço para gerenciar propostas de troca entre
     }
 
 
-    @Transactional // Garante que todas as operações dentro deste método sejam atômicas ( atomicas é quando todas as operações são concluídas com sucesso ou nenhuma é aplicada)
     public DetalheTrocaDTO buscarDetalheTrocaPorId(Long propostaTrocaId) { // Método para buscar detalhes de uma proposta de troca pelo ID
-        PropostaTroca proposta = propostaTrocaRepository.findById(propostaTrocaId) // Busca a proposta pelo ID
+        // O DTO é montado direto pela consulta (proposta, usuários e figurinhas em um único SELECT com joins)
+        return propostaTrocaRepository.findDetalheById(propostaTrocaId)
                 .orElseThrow(() -> new RuntimeException("Proposta de troca não encontrada com o ID: " + propostaTrocaId)); // Lança exceção se não encontrada
+    }
 
-        // Acesso forçado para carregar os dados LAZY antes de sair do método @Transactional
-        proposta.getUsuarioOfertante().getNome(); // Força carregamento do ofertante
-        proposta.getFigurinhaOferecida().getNomePersonagem(); // Força carregamento da figurinha oferecida
-        // Os dados estão carregados, agora podemos mapear com segurança
-        // Mapeia e retorna o DTO
-        return DetalheTrocaDTO.fromEntity(proposta);
+    // ETag do detalhe da proposta: a versão sobe quando a proposta é aceita ou cancelada (uma proposta excluída vira 404).
+    // Os nomes dos usuários não entram na versão, então uma edição de nome só aparece quando a proposta mudar.
+    public String etagProposta(Long propostaTrocaId) {
+        long versao = propostaTrocaRepository.findVersaoById(propostaTrocaId)
+                .orElseThrow(() -> new RuntimeException("Proposta de troca não encontrada com o ID: " + propostaTrocaId));
+        return "\"" + versao + "\"";
+    }
+
+    // Todas as propostas enviadas ou recebidas por um usuário, em uma única consulta
+    public List<DetalheTrocaDTO> listarTrocasDoUsuario(Long usuarioId) {
+        List<DetalheTrocaDTO> propostas = propostaTrocaRepository.findByUsuarioOfertanteIdOrUsuarioReceptorId(usuarioId, usuarioId);
+        if (propostas.isEmpty()) {
+            usuarioService.buscarUsuarioPorId(usuarioId); // Lança exceção se o usuário não existir
+        }
+        return propostas;
     }
 
 }
\ No newline at end of file
@@ -1,26 +1,47 @@
 package com.albumrickandmortyapi.service;
 
+import com.albumrickandmortyapi.dto.PaginaCursorDTO;
 import com.albumrickandmortyapi.dto.UsuarioDTO;
 import com.albumrickandmortyapi.dto.UsuarioListagemDTO;
 import com.albumrickandmortyapi.dto.UsuarioDetalheDTO; // NOVO DTO DE SAÍDA
+import com.albumrickandmortyapi.event.AlbumAlteradoEvent;
 import com.albumrickandmortyapi.model.Album;
 import com.albumrickandmortyapi.model.Usuario;
 import com.albumrickandmortyapi.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service // Indica que esta classe é um serviço do Spring
 public class UsuarioService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 500;
+
     // --- Injeção de Dependências ---
     private final UsuarioRepository usuarioRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate leituraTransactionTemplate; // Transação somente leitura que mantém o cursor da exportação aberto
 
     // Construtor para injeção de dependências
-    public UsuarioService(UsuarioRepository usuarioRepository) {
+    public UsuarioService(UsuarioRepository usuarioRepository, ApplicationEventPublisher eventPublisher,
+                          ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
         this.usuarioRepository = usuarioRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.leituraTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.leituraTransactionTemplate.setReadOnly(true);
     }
 
     // Método de busca INTERNA (retorna a ENTIDADE, usado por outros métodos do Service)
@@ -42,6 +63,7 @@ public class UsuarioService {
         usuario.setAlbum(album); // Define o álbum do usuário
 
         Usuario usuarioSalvo = usuarioRepository.save(usuario); // Salva o usuário (e o álbum por cascade)
+        eventPublisher.publishEvent(AlbumAlteradoEvent.de(usuarioSalvo.getId())); // O álbum novo entra no ranking (com 0 personagens)
 
         // Mapeia e retorna o DTO de detalhe
         return UsuarioDetalheDTO.fromEntity(usuarioSalvo); // Retorna o DTO mapeado da entidade salva
@@ -73,28 +95,88 @@ public class UsuarioService {
     public void excluirUsuario(Long id) { // metodo serve para excluir um usuário pelo ID
         Usuario usuario = buscarUsuarioPorId(id); // Busca a entidade pelo ID
         usuarioRepository.delete(usuario); // Exclui o usuário
+        eventPublisher.publishEvent(AlbumAlteradoEvent.de(id)); // O álbum sai junto, então some do índice de trocas
     }
 
 
     // 4. LISTAGEM de Usuários
     public List<UsuarioListagemDTO> listarTodosUsuarios() { // metodo serve para listar todos os usuários cadastrados
-        // Busca todos os usuários
-        List<Usuario> usuarios = usuarioRepository.findAll(); // Retorna uma lista de entidades Usuario
-
-        // Mapeia cada entidade Usuario para o UsuarioListagemDTO
-        return usuarios.stream() // Esse stream serve para transformar a lista de entidades em uma lista de DTOs
-                .map(usuario -> { // Mapeia cada usuário individualmente
-                    UsuarioListagemDTO dto = new UsuarioListagemDTO(); // Cria um novo DTO
-                    dto.setId(usuario.getId()); // Define o ID do usuário
-                    dto.setNome(usuario.getNome()); // Define o nome do usuário
-                    dto.setEmail(usuario.getEmail()); // Define o email do usuário
-
-                    // Verifica se o álbum existe antes de pegar o ID
-                    if (usuario.getAlbum() != null) { // Verifica se o álbum não é nulo
-                        dto.setIdAlbum(usuario.getAlbum().getId()); // Define o ID do álbum associado
+        // Os DTOs vêm prontos do banco, com o ID do álbum no mesmo select (sem uma consulta de álbum por usuário)
+        return usuarioRepository.findAllListagem();
+    }
+
+    // Lista os usuários aos poucos, com paginação por cursor (ID do último usuário da página anterior)
+    public PaginaCursorDTO<UsuarioListagemDTO> listarUsuarios(Long aposId, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        List<UsuarioListagemDTO> usuarios = usuarioRepository.findPaginaListagem(aposId, PageRequest.ofSize(tamanhoPagina));
+        return PaginaCursorDTO.de(usuarios, tamanhoPagina, UsuarioListagemDTO::getId);
+    }
+
+    // Escreve todos os usuários no formato pedido, lendo do banco por cursor.
+    // A memória usada não depende da quantidade de usuários: cada linha é escrita assim que é lida.
+    public void exportarUsuarios(FormatoExportacao formato, OutputStream saida) {
+        leituraTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UsuarioListagemDTO> usuarios = usuarioRepository.streamListagem()) {
+                if (formato == FormatoExportacao.CSV) {
+                    escreverLinha(saida, "id,nome,email,idAlbum");
+                }
+                usuarios.forEach(usuario -> {
+                    try {
+                        if (formato == FormatoExportacao.CSV) {
+                            escreverLinha(saida, usuario.getId() + "," + campoCsv(usuario.getNome()) + ","
+                                    + campoCsv(usuario.getEmail()) + "," + (usuario.getIdAlbum() != null ? usuario.getIdAlbum() : ""));
+                        } else {
+                            saida.write(objectMapper.writeValueAsBytes(usuario)); // writeValue(saida) fecharia a saída
+                            saida.write('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Ex: o cliente fechou a conexão no meio
                     }
-                    return dto; // Retorna o DTO mapeado
-                })
-                .collect(Collectors.toList()); // Coleta os DTOs em uma lista e retorna
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void escreverLinha(OutputStream saida, String linha) throws IOException {
+        saida.write(linha.getBytes(StandardCharsets.UTF_8));
+        saida.write('\n');
+    }
+
+    // Campo de texto no CSV: entre aspas quando tem vírgula, aspas ou quebra de linha (aspas internas viram "")
+    private String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+
+    // Formatos aceitos pela exportação de usuários
+    public enum FormatoExportacao {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv;charset=UTF-8");
+
+        private final String tipoConteudo;
+
+        FormatoExportacao(String tipoConteudo) {
+            this.tipoConteudo = tipoConteudo;
+        }
+
+        public String getTipoConteudo() {
+            return tipoConteudo;
+        }
+
+        public static FormatoExportacao de(String formato) {
+            for (FormatoExportacao valor : values()) {
+                if (valor.name().equalsIgnoreCase(formato)) {
+                    return valor;
+                }
+            }
+            throw new RuntimeException("Formato de exportação inválido: " + formato + " (use ndjson ou csv).");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.albumrickandmortyapi.benchmark;
+
+import com.albumrickandmortyapi.dto.AlbumDetalhadoDTO;
+import com.albumrickandmortyapi.dto.ContagemFigurinhaDTO;
+import com.albumrickandmortyapi.dto.DetalheTrocaDTO;
+import com.albumrickandmortyapi.dto.FigurinhaDTO;
+import com.albumrickandmortyapi.metricas.MetricasAlbum;
+import com.albumrickandmortyapi.model.Album;
+import com.albumrickandmortyapi.model.Figurinha;
+import com.albumrickandmortyapi.model.PropostaTroca;
+import com.albumrickandmortyapi.model.Raridade;
+import com.albumrickandmortyapi.model.Usuario;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import com.albumrickandmortyapi.repository.FigurinhaRepository;
+import com.albumrickandmortyapi.repository.PropostaTrocaRepository;
+import com.albumrickandmortyapi.service.AlbumService;
+import com.albumrickandmortyapi.service.CatalogoPersonagensService;
+import com.albumrickandmortyapi.service.ConfiguracaoPacotes;
+import com.albumrickandmortyapi.service.PackGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Caminhos quentes do álbum e das trocas com álbuns sintéticos de 10, 1.000 e 100.000 figurinhas.
+// Os repositórios são stubs que devolvem listas já montadas: o banco fica de fora e o que se mede é o código da aplicação.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlbumBenchmark {
+
+	private static final Long USUARIO_ID = 1L;
+	private static final int TOTAL_PERSONAGENS = 826;
+
+	@Param({"10", "1000", "100000"})
+	private int figurinhas;
+
+	private AlbumService albumService;
+	private ObjectMapper objectMapper;
+	private List<Figurinha> entidades;
+	private List<PropostaTroca> propostas;
+	private AlbumDetalhadoDTO albumDetalhado;
+
+	@Setup
+	public void preparar() {
+		Album album = new Album();
+		album.setId(1L);
+		Usuario ofertante = usuario(1L, "Rick");
+		Usuario receptor = usuario(2L, "Morty");
+		Raridade[] raridades = Raridade.values();
+
+		// Uma pilha por figurinha: personagens de 1 até o total do catálogo, repetindo nas raridades seguintes
+		entidades = new ArrayList<>(figurinhas);
+		List<FigurinhaDTO> dtos = new ArrayList<>(figurinhas);
+		List<ContagemFigurinhaDTO> repetidas = new ArrayList<>();
+		for (int i = 0; i < figurinhas; i++) {
+			Figurinha figurinha = new Figurinha();
+			figurinha.setId((long) i + 1);
+			figurinha.setIdPersonagemApi((long) (i % TOTAL_PERSONAGENS) + 1);
+			figurinha.setNomePersonagem("Personagem " + figurinha.getIdPersonagemApi());
+			figurinha.setRaridade(raridades[(i / TOTAL_PERSONAGENS) % raridades.length]);
+			figurinha.setQuantidade(1 + i % 3); // Um terço das pilhas tem 2 cópias, outro terço tem 3
+			figurinha.setAlbum(album);
+			entidades.add(figurinha);
+			dtos.add(FigurinhaDTO.fromEntity(figurinha));
+			if (figurinha.getQuantidade() > 1) {
+				repetidas.add(new ContagemFigurinhaDTO(figurinha.getNomePersonagem(), figurinha.getRaridade(), figurinha.getQuantidade()));
+			}
+		}
+
+		// Uma proposta para cada par de figurinhas vizinhas
+		propostas = new ArrayList<>(figurinhas / 2);
+		for (int i = 0; i + 1 < figurinhas; i += 2) {
+			PropostaTroca proposta = new PropostaTroca();
+			proposta.setId((long) i / 2 + 1);
+			proposta.setUsuarioOfertante(ofertante);
+			proposta.setUsuarioReceptor(receptor);
+			proposta.setFigurinhaOferecida(entidades.get(i));
+			proposta.setFigurinhaDesejada(entidades.get(i + 1));
+			propostas.add(proposta);
+		}
+
+		AlbumRepository albumRepository = stub(AlbumRepository.class);
+		FigurinhaRepository figurinhaRepository = stub(FigurinhaRepository.class);
+		CatalogoPersonagensService catalogo = stub(CatalogoPersonagensService.class);
+		when(catalogo.getTotalPersonagens()).thenReturn(TOTAL_PERSONAGENS);
+		when(albumRepository.findPersonagensDistintosByUsuarioId(USUARIO_ID)).thenReturn(Optional.of(Math.min(figurinhas, TOTAL_PERSONAGENS)));
+		when(figurinhaRepository.contarRepetidasByUsuarioId(USUARIO_ID)).thenReturn(repetidas);
+		when(figurinhaRepository.findDTOsByUsuarioId(USUARIO_ID)).thenReturn(dtos);
+
+		objectMapper = new ObjectMapper();
+		albumService = new AlbumService(albumRepository, figurinhaRepository, catalogo,
+				new PackGenerator(new ConfiguracaoPacotes(null, null, null)), stub(PropostaTrocaRepository.class), objectMapper,
+				stub(PlatformTransactionManager.class), stub(ApplicationEventPublisher.class), stub(JdbcTemplate.class),
+				new MetricasAlbum(new SimpleMeterRegistry()), 3);
+		albumDetalhado = albumService.buscarDetalhesAlbumSimples(USUARIO_ID);
+	}
+
+	@Benchmark
+	public double calcularPorcentagemCompleta() {
+		return albumService.calcularPorcentagemCompleta(USUARIO_ID);
+	}
+
+	// Agrupamento das repetidas + montagem do DTO detalhado
+	@Benchmark
+	public AlbumDetalhadoDTO buscarDetalhesAlbumSimples() {
+		return albumService.buscarDetalhesAlbumSimples(USUARIO_ID);
+	}
+
+	@Benchmark
+	public List<FigurinhaDTO> figurinhaDtoFromEntity() {
+		return entidades.stream().map(FigurinhaDTO::fromEntity).toList();
+	}
+
+	@Benchmark
+	public List<DetalheTrocaDTO> detalheTrocaDtoFromEntity() {
+		return propostas.stream().map(DetalheTrocaDTO::fromEntity).toList();
+	}
+
+	@Benchmark
+	public byte[] serializarAlbumDetalhado() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(albumDetalhado);
+	}
+
+	private static Usuario usuario(Long id, String nome) {
+		Usuario usuario = new Usuario();
+		usuario.setId(id);
+		usuario.setNome(nome);
+		return usuario;
+	}
+
+	// Mock só com respostas prontas (sem registrar chamadas), para o Mockito pesar o mínimo na medição
+	private static <T> T stub(Class<T> tipo) {
+		return mock(tipo, withSettings().stubOnly());
+	}
+}
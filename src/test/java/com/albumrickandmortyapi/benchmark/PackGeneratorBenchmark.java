@@ -0,0 +1,69 @@
+package com.albumrickandmortyapi.benchmark;
+
+import com.albumrickandmortyapi.model.Raridade;
+import com.albumrickandmortyapi.service.ConfiguracaoPacotes;
+import com.albumrickandmortyapi.service.PackGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+// Sorteio de um pacote (5 personagens + raridades) sem banco nem catálogo: só o custo do PackGenerator.
+// Roda com 1 thread e com 4 threads para mostrar que o sorteio não disputa nada entre threads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS) // Pacotes por segundo
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackGeneratorBenchmark {
+
+	private static final int FIGURINHAS_POR_PACOTE = 5;
+	private static final String[] STATUS = {"Alive", "Dead", "unknown"};
+
+	@Param({"false", "true"})
+	private boolean deterministico;
+
+	private PackGenerator packGenerator;
+	private int totalPersonagens;
+
+	@Setup
+	public void preparar() {
+		packGenerator = new PackGenerator(new ConfiguracaoPacotes(deterministico ? 42L : null, null, null));
+		totalPersonagens = 826; // Tamanho atual do catálogo da API
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void gerarPacote(Blackhole blackhole) {
+		gerar(blackhole);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public void gerarPacoteConcorrente(Blackhole blackhole) {
+		gerar(blackhole);
+	}
+
+	private void gerar(Blackhole blackhole) {
+		RandomGenerator sorteio = packGenerator.novoSorteio(1L, 0L);
+		for (int i = 0; i < FIGURINHAS_POR_PACOTE; i++) {
+			long personagem = packGenerator.sortearPersonagem(sorteio, totalPersonagens);
+			Raridade raridade = packGenerator.sortearRaridade(sorteio, STATUS[(int) (personagem % STATUS.length)]);
+			blackhole.consume(personagem);
+			blackhole.consume(raridade);
+		}
+	}
+}
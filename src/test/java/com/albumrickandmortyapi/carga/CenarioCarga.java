@@ -0,0 +1,279 @@
+package com.albumrickandmortyapi.carga;
+
+import com.albumrickandmortyapi.AlbumRickandmortyApiApplication;
+import com.albumrickandmortyapi.service.CatalogoPersonagensService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Teste de carga de ponta a ponta: sobe a aplicação com um H2 em memória e o stub da API de personagens,
+// e leva usuários simultâneos por criar usuário -> abrir pacotes -> propor trocas -> aceitar trocas, tudo por HTTP.
+// Cada operação roda em uma fase separada e o relatório mostra vazão, p50 e p99 de cada uma.
+// Uso: mvn -Pcarga test (parâmetros em -Dcarga.*, ver o pom). O resultado também fica em target/carga-resultado.json.
+public class CenarioCarga {
+
+	// Parâmetros do cenário
+	public record Configuracao(int usuarios, int aberturasPorUsuario, int pacotesPorAbertura, int trocasPorPar,
+							   int personagensApi, Duration latenciaApi, double taxaErrosApi) {
+
+		static Configuracao dePropriedades() {
+			return new Configuracao(
+					Integer.getInteger("carga.usuarios", 50),
+					Integer.getInteger("carga.aberturas", 10),
+					Integer.getInteger("carga.pacotes", 5),
+					Integer.getInteger("carga.trocas", 5),
+					Integer.getInteger("carga.personagens", 826),
+					Duration.ofMillis(Long.getLong("carga.latencia-api-ms", 50)),
+					Double.parseDouble(System.getProperty("carga.taxa-erros-api", "0.05")));
+		}
+	}
+
+	// Resultado de uma operação: vazão calculada sobre a duração da fase dela (com a mensagem do primeiro erro, se houve)
+	public record ResultadoOperacao(String operacao, int requisicoes, int erros, double vazaoPorSegundo, double p50Ms, double p99Ms,
+									String primeiroErro) {
+	}
+
+	public record Relatorio(Configuracao configuracao, Duration duracao, List<ResultadoOperacao> operacoes, int requisicoesStub, int errosInjetadosStub) {
+
+		public int totalErros() {
+			return operacoes.stream().mapToInt(ResultadoOperacao::erros).sum();
+		}
+	}
+
+	private final Configuracao configuracao;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+	private final List<ResultadoOperacao> resultados = new ArrayList<>();
+	private String baseUrl;
+
+	public CenarioCarga(Configuracao configuracao) {
+		this.configuracao = configuracao;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Relatorio relatorio = new CenarioCarga(Configuracao.dePropriedades()).executar();
+		imprimir(relatorio);
+		Path arquivo = Path.of("target", "carga-resultado.json");
+		Files.createDirectories(arquivo.getParent());
+		new ObjectMapper().findAndRegisterModules().writerWithDefaultPrettyPrinter().writeValue(arquivo.toFile(), relatorio);
+		System.exit(0); // Tarefas agendadas da aplicação não seguram a JVM
+	}
+
+
+	// --- Execução ---
+	public Relatorio executar() throws Exception {
+		try (PersonagensApiStub stub = new PersonagensApiStub(configuracao.personagensApi(), configuracao.latenciaApi(), configuracao.taxaErrosApi());
+			 ConfigurableApplicationContext aplicacao = subirAplicacao(stub)) {
+
+			baseUrl = "http://localhost:" + aplicacao.getEnvironment().getProperty("local.server.port");
+			aguardarCatalogo(aplicacao.getBean(CatalogoPersonagensService.class));
+
+			long inicio = System.nanoTime();
+			List<Long> usuarios = criarUsuarios();
+			Map<Long, List<Long>> figurinhasPorUsuario = abrirPacotes(usuarios);
+			Map<Long, List<Long>> propostasPorReceptor = proporTrocas(usuarios, figurinhasPorUsuario);
+			aceitarTrocas(propostasPorReceptor);
+			Duration duracao = Duration.ofNanos(System.nanoTime() - inicio);
+
+			return new Relatorio(configuracao, duracao, List.copyOf(resultados), stub.getRequisicoes(), stub.getErrosInjetados());
+		}
+	}
+
+	private ConfigurableApplicationContext subirAplicacao(PersonagensApiStub stub) {
+		// Argumentos de linha de comando: valem mais que o application.properties (propriedades "default" perderiam para ele)
+		return new SpringApplicationBuilder(AlbumRickandmortyApiApplication.class).run(
+				"--server.port=0",
+				// Banco próprio: não mistura com o H2 dos outros testes que rodam na mesma JVM
+				"--spring.datasource.url=jdbc:h2:mem:carga-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+				"--rickandmorty.api.url=" + stub.getUrl(),
+				"--album.catalogo.carregar-na-inicializacao=true",
+				// Com erros injetados, a carga inicial do catálogo precisa de várias tentativas rápidas
+				"--album.catalogo.inicializacao.tentativas=50",
+				"--album.catalogo.inicializacao.espera-inicial=PT0.1S",
+				"--album.catalogo.inicializacao.espera-maxima=PT1S",
+				"--album.pacotes.semente=42"); // Pacotes determinísticos: execuções comparáveis entre si
+	}
+
+	private void aguardarCatalogo(CatalogoPersonagensService catalogo) throws InterruptedException {
+		long limite = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+		while (!catalogo.isPronto()) {
+			if (System.nanoTime() > limite) {
+				throw new IllegalStateException("O catálogo de personagens não carregou a partir do stub.");
+			}
+			Thread.sleep(50);
+		}
+	}
+
+
+	// --- Fases ---
+	private List<Long> criarUsuarios() throws Exception {
+		String execucao = UUID.randomUUID().toString().substring(0, 8); // E-mails únicos mesmo rodando o cenário várias vezes
+		List<List<Integer>> usuarios = new ArrayList<>();
+		for (int i = 0; i < configuracao.usuarios(); i++) {
+			usuarios.add(List.of(i));
+		}
+		List<Long> ids = new ArrayList<>(fase("criarUsuario", usuarios, i -> {
+			String corpo = objectMapper.writeValueAsString(Map.of("nome", "Usuario " + i, "email", "carga-" + execucao + "-" + i + "@carga.com"));
+			return requisitar(HttpRequest.newBuilder(URI.create(baseUrl + "/usuarios/criar"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(corpo))).get("id").asLong();
+		}));
+		ids.removeIf(id -> id == null);
+		return ids;
+	}
+
+	// Cada usuário abre os pacotes em várias chamadas, uma depois da outra; guarda os IDs das pilhas que recebeu para as trocas
+	private Map<Long, List<Long>> abrirPacotes(List<Long> usuarios) throws Exception {
+		Map<Long, Set<Long>> pilhas = new ConcurrentHashMap<>();
+		List<List<Long>> aberturas = usuarios.stream()
+				.map(usuarioId -> Collections.nCopies(configuracao.aberturasPorUsuario(), usuarioId))
+				.toList();
+		fase("abrirPacotes", aberturas, usuarioId -> {
+			JsonNode figurinhas = requisitar(HttpRequest.newBuilder(URI.create(baseUrl + "/pacotes/abrir/" + usuarioId + "?quantidade=" + configuracao.pacotesPorAbertura()))
+					.POST(HttpRequest.BodyPublishers.noBody()));
+			Set<Long> doUsuario = pilhas.computeIfAbsent(usuarioId, id -> ConcurrentHashMap.newKeySet());
+			figurinhas.forEach(figurinha -> doUsuario.add(figurinha.get("idFigurinha").asLong()));
+			return usuarioId;
+		});
+
+		Map<Long, List<Long>> resultado = new ConcurrentHashMap<>();
+		pilhas.forEach((usuarioId, ids) -> resultado.put(usuarioId, new ArrayList<>(new LinkedHashSet<>(ids))));
+		return resultado;
+	}
+
+	// Usuários em pares (0 e 1, 2 e 3, ...): o primeiro propõe trocas de pilhas diferentes ao segundo
+	private Map<Long, List<Long>> proporTrocas(List<Long> usuarios, Map<Long, List<Long>> figurinhas) throws Exception {
+		record Proposta(Long ofertante, Long oferecida, Long receptor, Long desejada) {
+		}
+		List<Proposta> propostas = new ArrayList<>();
+		for (int i = 0; i + 1 < usuarios.size(); i += 2) {
+			List<Long> doOfertante = figurinhas.getOrDefault(usuarios.get(i), List.of());
+			List<Long> doReceptor = figurinhas.getOrDefault(usuarios.get(i + 1), List.of());
+			for (int t = 0; t < Math.min(configuracao.trocasPorPar(), Math.min(doOfertante.size(), doReceptor.size())); t++) {
+				propostas.add(new Proposta(usuarios.get(i), doOfertante.get(t), usuarios.get(i + 1), doReceptor.get(t)));
+			}
+		}
+
+		Map<Long, List<Long>> propostasPorReceptor = new ConcurrentHashMap<>();
+		fase("proporTroca", propostas.stream().map(List::of).toList(), proposta -> {
+			String corpo = objectMapper.writeValueAsString(Map.of(
+					"ofertanteId", proposta.ofertante(), "figurinhaOferecidaId", proposta.oferecida(),
+					"receptorId", proposta.receptor(), "figurinhaDesejadaId", proposta.desejada()));
+			long propostaId = requisitar(HttpRequest.newBuilder(URI.create(baseUrl + "/trocas/propor"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(corpo))).get("id").asLong();
+			propostasPorReceptor.computeIfAbsent(proposta.receptor(), id -> new CopyOnWriteArrayList<>()).add(propostaId);
+			return propostaId;
+		});
+		return propostasPorReceptor;
+	}
+
+	// Cada receptor aceita as suas propostas uma por vez; receptores diferentes aceitam ao mesmo tempo
+	private void aceitarTrocas(Map<Long, List<Long>> propostasPorReceptor) throws Exception {
+		List<List<long[]>> aceites = new ArrayList<>();
+		propostasPorReceptor.forEach((receptor, propostas) -> aceites.add(propostas.stream().map(proposta -> new long[]{receptor, proposta}).toList()));
+		fase("aceitarTroca", aceites, aceite ->
+				requisitar(HttpRequest.newBuilder(URI.create(baseUrl + "/trocas/aceitar/" + aceite[1] + "?usuarioId=" + aceite[0]))
+						.PUT(HttpRequest.BodyPublishers.noBody())).get("id").asLong());
+	}
+
+
+	// --- Medição ---
+	@FunctionalInterface
+	private interface Passo<T> {
+		Long executar(T item) throws Exception;
+	}
+
+	// Cada grupo (ex: as aberturas de um usuário) roda em sequência na sua própria thread virtual, e os grupos rodam ao mesmo tempo,
+	// como clientes reais. Registra a latência de cada requisição e retorna o resultado de cada uma na ordem (null quando deu erro).
+	private <T> List<Long> fase(String operacao, List<List<T>> grupos, Passo<T> passo) throws Exception {
+		int execucoes = grupos.stream().mapToInt(List::size).sum();
+		long[] latencias = new long[execucoes];
+		Long[] retornos = new Long[execucoes];
+		AtomicInteger erros = new AtomicInteger();
+		AtomicReference<String> primeiroErro = new AtomicReference<>();
+
+		long inicio = System.nanoTime();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			int primeiroIndice = 0;
+			for (List<T> grupo : grupos) {
+				int deslocamento = primeiroIndice;
+				executor.submit(() -> {
+					for (int k = 0; k < grupo.size(); k++) {
+						long comeco = System.nanoTime();
+						try {
+							retornos[deslocamento + k] = passo.executar(grupo.get(k));
+						} catch (Exception e) {
+							erros.incrementAndGet();
+							primeiroErro.compareAndSet(null, e.getMessage());
+						} finally {
+							latencias[deslocamento + k] = System.nanoTime() - comeco;
+						}
+					}
+				});
+				primeiroIndice += grupo.size();
+			}
+		} // O close do executor espera todos os grupos
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+
+		Arrays.sort(latencias);
+		resultados.add(new ResultadoOperacao(operacao, execucoes, erros.get(),
+				execucoes == 0 ? 0 : execucoes / segundos, percentil(latencias, 50), percentil(latencias, 99), primeiroErro.get()));
+		return Arrays.asList(retornos);
+	}
+
+	// Percentil pelo método nearest-rank, em milissegundos
+	private static double percentil(long[] ordenadas, int percentil) {
+		if (ordenadas.length == 0) {
+			return 0;
+		}
+		int posicao = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+		return ordenadas[Math.max(0, posicao)] / 1e6;
+	}
+
+	// Faz a requisição e devolve o corpo JSON; qualquer status fora de 2xx conta como erro da operação
+	private JsonNode requisitar(HttpRequest.Builder requisicao) throws IOException, InterruptedException {
+		HttpResponse<String> resposta = http.send(requisicao.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+		if (resposta.statusCode() / 100 != 2) {
+			throw new IOException("HTTP " + resposta.statusCode() + ": " + resposta.headers().firstValue("Error-Message").orElse(resposta.body()));
+		}
+		return objectMapper.readTree(resposta.body());
+	}
+
+	private static void imprimir(Relatorio relatorio) {
+		System.out.printf("%nCenário: %s%nDuração: %.1f s | requisições ao stub: %d (%d erros injetados)%n",
+				relatorio.configuracao(), relatorio.duracao().toMillis() / 1000.0, relatorio.requisicoesStub(), relatorio.errosInjetadosStub());
+		System.out.printf("%-14s %10s %7s %12s %10s %10s%n", "operação", "requisições", "erros", "req/s", "p50 (ms)", "p99 (ms)");
+		for (ResultadoOperacao resultado : relatorio.operacoes()) {
+			System.out.printf("%-14s %10d %7d %12.1f %10.2f %10.2f%n", resultado.operacao(), resultado.requisicoes(), resultado.erros(),
+					resultado.vazaoPorSegundo(), resultado.p50Ms(), resultado.p99Ms());
+			if (resultado.primeiroErro() != null) {
+				System.out.printf("%-14s primeiro erro: %s%n", "", resultado.primeiroErro());
+			}
+		}
+	}
+}
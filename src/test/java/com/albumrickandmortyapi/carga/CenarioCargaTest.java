@@ -0,0 +1,25 @@
+package com.albumrickandmortyapi.carga;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Roda o cenário de carga em tamanho mínimo para garantir que o stub e o roteiro continuam funcionando com a API atual
+class CenarioCargaTest {
+
+	@Test
+	void cenarioCompletoSemErros() throws Exception {
+		CenarioCarga.Configuracao configuracao = new CenarioCarga.Configuracao(4, 2, 3, 2, 60, Duration.ofMillis(5), 0.2);
+
+		CenarioCarga.Relatorio relatorio = new CenarioCarga(configuracao).executar();
+
+		// As quatro fases rodaram, e nenhuma requisição falhou (os erros do stub ficam só na carga do catálogo, que tenta de novo)
+		assertEquals(4, relatorio.operacoes().size());
+		assertEquals(0, relatorio.totalErros(), () -> relatorio.operacoes().toString());
+		assertEquals(8, relatorio.operacoes().get(1).requisicoes()); // 4 usuários x 2 aberturas
+		assertTrue(relatorio.operacoes().get(3).requisicoes() > 0);
+	}
+}
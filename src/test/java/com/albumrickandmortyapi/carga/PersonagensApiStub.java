@@ -0,0 +1,165 @@
+package com.albumrickandmortyapi.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stub local da API do Rick and Morty (JDK HttpServer, porta livre): serve /api/character e /api/character/{ids}
+// com personagens sintéticos, latência fixa e uma taxa de erros 503 configuráveis.
+// Usado pelo CenarioCarga para medir a aplicação sem depender dos limites e da latência da API real.
+public class PersonagensApiStub implements AutoCloseable {
+
+	private static final int PERSONAGENS_POR_PAGINA = 20; // Igual à API real
+	private static final String[] STATUS = {"Alive", "Dead", "unknown"};
+	private static final String[] ESPECIES = {"Human", "Alien", "Robot"};
+
+	private final int totalPersonagens;
+	private final Duration latencia;
+	private final double taxaErros;
+	private final HttpServer servidor;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor(); // A latência não prende threads de plataforma
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicInteger requisicoes = new AtomicInteger();
+	private final AtomicInteger errosInjetados = new AtomicInteger();
+
+	public PersonagensApiStub(int totalPersonagens, Duration latencia, double taxaErros) throws IOException {
+		this.totalPersonagens = totalPersonagens;
+		this.latencia = latencia;
+		this.taxaErros = taxaErros;
+		this.servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.servidor.createContext("/api/character", this::responder);
+		this.servidor.setExecutor(executor);
+		this.servidor.start();
+	}
+
+	// URL para o rickandmorty.api.url
+	public String getUrl() {
+		return "http://localhost:" + servidor.getAddress().getPort() + "/api";
+	}
+
+	public int getRequisicoes() {
+		return requisicoes.get();
+	}
+
+	public int getErrosInjetados() {
+		return errosInjetados.get();
+	}
+
+	@Override
+	public void close() {
+		servidor.stop(0);
+		executor.shutdownNow();
+	}
+
+
+	// --- Rotas ---
+	private void responder(HttpExchange troca) throws IOException {
+		try {
+			requisicoes.incrementAndGet();
+			if (!latencia.isZero()) {
+				Thread.sleep(latencia);
+			}
+			if (ThreadLocalRandom.current().nextDouble() < taxaErros) {
+				errosInjetados.incrementAndGet();
+				escrever(troca, 503, Map.of("error", "Erro injetado pelo stub"));
+				return;
+			}
+
+			// "/api/character" (listagem paginada) ou "/api/character/1,2,3"
+			String caminho = troca.getRequestURI().getPath().substring("/api/character".length());
+			if (caminho.isEmpty() || caminho.equals("/")) {
+				escrever(troca, 200, pagina(numeroPagina(troca.getRequestURI().getQuery())));
+			} else {
+				buscarPorIds(troca, caminho.substring(1));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // Stub sendo desligado
+		} finally {
+			troca.close();
+		}
+	}
+
+	private void buscarPorIds(HttpExchange troca, String ids) throws IOException {
+		String[] partes = ids.split(",");
+		List<Map<String, Object>> encontrados = new ArrayList<>();
+		for (String parte : partes) {
+			long id = Long.parseLong(parte.trim());
+			if (id >= 1 && id <= totalPersonagens) {
+				encontrados.add(personagem(id));
+			}
+		}
+
+		// Como na API real: um único ID devolve o objeto (ou 404), vários IDs devolvem uma lista
+		if (partes.length == 1) {
+			if (encontrados.isEmpty()) {
+				escrever(troca, 404, Map.of("error", "Character not found"));
+			} else {
+				escrever(troca, 200, encontrados.get(0));
+			}
+			return;
+		}
+		escrever(troca, 200, encontrados);
+	}
+
+	private Map<String, Object> pagina(int numero) {
+		int totalPaginas = Math.max(1, (totalPersonagens + PERSONAGENS_POR_PAGINA - 1) / PERSONAGENS_POR_PAGINA);
+		List<Map<String, Object>> resultados = new ArrayList<>();
+		for (long id = (long) (numero - 1) * PERSONAGENS_POR_PAGINA + 1; id <= Math.min((long) numero * PERSONAGENS_POR_PAGINA, totalPersonagens); id++) {
+			resultados.add(personagem(id));
+		}
+
+		Map<String, Object> info = new LinkedHashMap<>();
+		info.put("count", totalPersonagens);
+		info.put("pages", totalPaginas);
+		info.put("next", numero < totalPaginas ? getUrl() + "/character?page=" + (numero + 1) : null);
+
+		Map<String, Object> resposta = new LinkedHashMap<>();
+		resposta.put("info", info);
+		resposta.put("results", resultados);
+		return resposta;
+	}
+
+	// Personagem sintético: o status se alterna entre Alive, Dead e unknown para cobrir todas as raridades
+	private Map<String, Object> personagem(long id) {
+		Map<String, Object> personagem = new LinkedHashMap<>();
+		personagem.put("id", id);
+		personagem.put("name", "Personagem " + id);
+		personagem.put("status", STATUS[(int) (id % STATUS.length)]);
+		personagem.put("species", ESPECIES[(int) (id % ESPECIES.length)]);
+		return personagem;
+	}
+
+	private static int numeroPagina(String query) {
+		if (query != null) {
+			for (String parametro : query.split("&")) {
+				if (parametro.startsWith("page=")) {
+					return Integer.parseInt(parametro.substring("page=".length()));
+				}
+			}
+		}
+		return 1;
+	}
+
+	private void escrever(HttpExchange troca, int status, Object corpo) throws IOException {
+		byte[] bytes = objectMapper.writeValueAsString(corpo).getBytes(StandardCharsets.UTF_8);
+		troca.getResponseHeaders().add("Content-Type", "application/json");
+		troca.sendResponseHeaders(status, bytes.length);
+		try (OutputStream saida = troca.getResponseBody()) {
+			saida.write(bytes);
+		}
+	}
+}
@@ -0,0 +1,292 @@
+package com.albumrickandmortyapi.controller;
+
+import com.albumrickandmortyapi.dto.PropostaTrocaDTO;
+import com.albumrickandmortyapi.dto.UsuarioDTO;
+import com.albumrickandmortyapi.model.Personagem;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import com.albumrickandmortyapi.repository.PersonagemRepository;
+import com.albumrickandmortyapi.service.CatalogoPersonagensService;
+import com.albumrickandmortyapi.service.TrocaService;
+import com.albumrickandmortyapi.service.UsuarioService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.albumrickandmortyapi.metricas.OrcamentoSql.comandosSql;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Número de comandos SQL de cada endpoint. Os usuários têm várias figurinhas e propostas, então um N+1 (uma consulta por item)
+// muda a contagem e quebra o build. Se uma mudança alterar a contagem de propósito, atualize o número aqui.
+// Cada teste começa com o cache de segundo nível vazio; os testes "DoCache" repetem a requisição com o cache já carregado.
+// O que os consumidores de AlbumAlteradoEvent leem (índice de trocas, ranking) roda nas threads do PipelineEventos e não entra na conta.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:orcamento-sql;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrcamentoSqlControllersTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private TrocaService trocaService;
+	@Autowired
+	private CatalogoPersonagensService catalogoPersonagens;
+	@Autowired
+	private PersonagemRepository personagemRepository;
+	@Autowired
+	private AlbumRepository albumRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Long ofertante;
+	private Long receptor;
+	private Long propostaId;
+
+	@BeforeAll
+	void popularBanco() {
+		for (long personagem = 1; personagem <= 6; personagem++) {
+			personagemRepository.save(new Personagem(personagem, "Personagem " + personagem, "unknown", "Human"));
+		}
+		catalogoPersonagens.recarregar();
+
+		ofertante = criarUsuario("ofertante");
+		receptor = criarUsuario("receptor");
+		// Personagens 1 a 3 no álbum do ofertante, 4 a 6 no do receptor, com repetidas
+		inserirFigurinhas(ofertante, 1, 3);
+		inserirFigurinhas(receptor, 4, 6);
+
+		for (int i = 0; i < 3; i++) {
+			propostaId = propor(figurinha(ofertante, 1 + i), figurinha(receptor, 4 + i));
+		}
+	}
+
+	@BeforeEach
+	void esvaziarCache() {
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+	}
+
+	// --- Usuários ---
+
+	@Test
+	void criarUsuario() throws Exception {
+		mockMvc.perform(post("/usuarios/criar").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"nome\": \"novo\", \"email\": \"novo@orcamento.com\"}"))
+				.andExpect(status().isCreated())
+				.andExpect(comandosSql(2));
+	}
+
+	@Test
+	void buscarUsuario() throws Exception {
+		mockMvc.perform(get("/usuarios/{id}", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(2));
+	}
+
+	@Test
+	void buscarUsuarioDoCache() throws Exception {
+		mockMvc.perform(get("/usuarios/{id}", ofertante));
+		// O usuário vem do cache; só o álbum (lado mappedBy do @OneToOne, buscado pela coluna usuario_id) vai ao banco
+		mockMvc.perform(get("/usuarios/{id}", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	@Test
+	void editarUsuario() throws Exception {
+		Long usuario = criarUsuario("editar");
+		mockMvc.perform(put("/usuarios/{id}", usuario).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"nome\": \"editado\", \"email\": \"editado@orcamento.com\"}"))
+				.andExpect(status().isOk())
+				.andExpect(comandosSql(3));
+	}
+
+	@Test
+	void excluirUsuario() throws Exception {
+		Long usuario = criarUsuario("excluir");
+		inserirFigurinhas(usuario, 1, 3);
+		mockMvc.perform(delete("/usuarios/{id}", usuario)).andExpect(status().isNoContent()).andExpect(comandosSql(6));
+	}
+
+	@Test
+	void listarUsuarios() throws Exception {
+		mockMvc.perform(get("/usuarios/listar")).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	@Test
+	void listarUsuariosPaginado() throws Exception {
+		mockMvc.perform(get("/usuarios/pagina").param("tamanho", "2")).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	// --- Álbuns e pacotes ---
+
+	@Test
+	void abrirPacotes() throws Exception {
+		Long usuario = criarUsuario("pacotes");
+		mockMvc.perform(post("/pacotes/abrir/{id}", usuario).param("quantidade", "3"))
+				.andExpect(status().isOk())
+				.andExpect(comandosSql(4));
+	}
+
+	@Test
+	void buscarAlbum() throws Exception {
+		mockMvc.perform(get("/albuns/{id}", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(4));
+	}
+
+	@Test
+	void buscarAlbumNaoModificado() throws Exception {
+		String etag = mockMvc.perform(get("/albuns/{id}", ofertante)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/albuns/{id}", ofertante).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(comandosSql(1)); // Só a versão do álbum
+	}
+
+	@Test
+	void progressoAlbum() throws Exception {
+		mockMvc.perform(get("/albuns/{id}/progresso", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(2));
+	}
+
+	@Test
+	void progressoAlbumNaoModificado() throws Exception {
+		String etag = mockMvc.perform(get("/albuns/{id}/progresso", ofertante)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/albuns/{id}/progresso", ofertante).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(comandosSql(1));
+	}
+
+	@Test
+	void figurinhasFaltantes() throws Exception {
+		mockMvc.perform(get("/albuns/{id}/faltantes", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	@Test
+	void listarFigurinhas() throws Exception {
+		mockMvc.perform(get("/albuns/{id}/figurinhas", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	@Test
+	void rankingColecionadores() throws Exception {
+		mockMvc.perform(get("/albuns/ranking").param("top", "5")).andExpect(status().isOk()).andExpect(comandosSql(0));
+	}
+
+	@Test
+	void posicaoNoRanking() throws Exception {
+		mockMvc.perform(get("/albuns/{id}/ranking", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(0));
+	}
+
+	@Test
+	void removerFigurinha() throws Exception {
+		Long usuario = criarUsuario("remover");
+		inserirFigurinhas(usuario, 1, 1);
+		mockMvc.perform(delete("/albuns/{id}/figurinhas/{figurinhaId}", usuario, figurinha(usuario, 1)))
+				.andExpect(status().isNoContent())
+				.andExpect(comandosSql(4));
+	}
+
+	// --- Trocas ---
+
+	@Test
+	void proporTroca() throws Exception {
+		mockMvc.perform(post("/trocas/propor").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"ofertanteId\": " + ofertante + ", \"figurinhaOferecidaId\": " + figurinha(ofertante, 2)
+								+ ", \"receptorId\": " + receptor + ", \"figurinhaDesejadaId\": " + figurinha(receptor, 5) + "}"))
+				.andExpect(status().isCreated())
+				.andExpect(comandosSql(7));
+	}
+
+	@Test
+	void proporTrocaDoCache() throws Exception {
+		propor(figurinha(ofertante, 2), figurinha(receptor, 5));
+		mockMvc.perform(post("/trocas/propor").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"ofertanteId\": " + ofertante + ", \"figurinhaOferecidaId\": " + figurinha(ofertante, 2)
+								+ ", \"receptorId\": " + receptor + ", \"figurinhaDesejadaId\": " + figurinha(receptor, 5) + "}"))
+				.andExpect(status().isCreated())
+				.andExpect(comandosSql(5)); // Os dois usuários saem do cache (7 comandos com o cache vazio)
+	}
+
+	@Test
+	void aceitarTroca() throws Exception {
+		Long proposta = propor(figurinha(ofertante, 3), figurinha(receptor, 6));
+		mockMvc.perform(put("/trocas/aceitar/{id}", proposta).param("usuarioId", receptor.toString()))
+				.andExpect(status().isOk())
+				.andExpect(comandosSql(12));
+	}
+
+	@Test
+	void deletarTroca() throws Exception {
+		Long proposta = propor(figurinha(ofertante, 1), figurinha(receptor, 4));
+		mockMvc.perform(delete("/trocas/{id}", proposta)).andExpect(status().isNoContent()).andExpect(comandosSql(3));
+	}
+
+	@Test
+	void buscarTroca() throws Exception {
+		mockMvc.perform(get("/trocas/{id}", propostaId)).andExpect(status().isOk()).andExpect(comandosSql(2));
+	}
+
+	@Test
+	void buscarTrocaNaoModificada() throws Exception {
+		String etag = mockMvc.perform(get("/trocas/{id}", propostaId)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(get("/trocas/{id}", propostaId).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(comandosSql(1));
+	}
+
+	@Test
+	void trocasDoUsuario() throws Exception {
+		mockMvc.perform(get("/trocas/usuario/{id}", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	@Test
+	void trocasRecebidas() throws Exception {
+		mockMvc.perform(get("/trocas/recebidas/{id}", receptor)).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	@Test
+	void trocasEnviadas() throws Exception {
+		mockMvc.perform(get("/trocas/enviadas/{id}", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(1));
+	}
+
+	@Test
+	void sugestoesDeTroca() throws Exception {
+		mockMvc.perform(get("/trocas/sugestoes/{id}", ofertante)).andExpect(status().isOk()).andExpect(comandosSql(2));
+	}
+
+	private Long criarUsuario(String nome) {
+		UsuarioDTO dto = new UsuarioDTO();
+		dto.setNome(nome);
+		dto.setEmail(nome + "@orcamento.com");
+		return usuarioService.criarUsuarioComAlbum(dto).getId();
+	}
+
+	// Duas cópias de cada personagem do intervalo, raridade COMUM, inseridas direto no banco
+	private void inserirFigurinhas(Long usuarioId, long primeiro, long ultimo) {
+		Long albumId = albumRepository.findByUsuarioId(usuarioId).orElseThrow().getId();
+		for (long personagem = primeiro; personagem <= ultimo; personagem++) {
+			jdbcTemplate.update("insert into figurinhas (album_id, id_personagem_api, nome_personagem, raridade, quantidade, versao) " +
+					"values (?, ?, ?, 'COMUM', 2, 0)", albumId, personagem, "Personagem " + personagem);
+		}
+	}
+
+	private Long figurinha(Long usuarioId, long personagem) {
+		return jdbcTemplate.queryForObject("select f.id from figurinhas f join albums a on a.id = f.album_id " +
+				"where a.usuario_id = ? and f.id_personagem_api = ?", Long.class, usuarioId, personagem);
+	}
+
+	private Long propor(Long figurinhaOferecida, Long figurinhaDesejada) {
+		PropostaTrocaDTO dto = new PropostaTrocaDTO();
+		dto.setOfertanteId(ofertante);
+		dto.setFigurinhaOferecidaId(figurinhaOferecida);
+		dto.setReceptorId(receptor);
+		dto.setFigurinhaDesejadaId(figurinhaDesejada);
+		return trocaService.proporTroca(dto).getId();
+	}
+}
@@ -0,0 +1,92 @@
+package com.albumrickandmortyapi.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A requisição só enfileira: o consumidor recebe os eventos em lotes, sem usuários repetidos,
+// e uma fila cheia descarta o evento (sem esperar) e faz o consumidor ser reconstruído
+class PipelineEventosTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private PipelineEventos pipeline;
+
+	@AfterEach
+	void parar() throws InterruptedException {
+		pipeline.parar();
+	}
+
+	@Test
+	void eventosEnfileiradosChegamEmUmLoteSemRepeticao() throws InterruptedException {
+		ConsumidorTeste consumidor = new ConsumidorTeste();
+		pipeline = new PipelineEventos(List.of(consumidor), registry, 100, 50);
+
+		// Publicados antes da thread começar: ficam todos na fila e saem no mesmo lote
+		pipeline.aoAlterarAlbum(AlbumAlteradoEvent.de(1L));
+		pipeline.aoAlterarAlbum(AlbumAlteradoEvent.de(1L, 2L));
+		pipeline.aoAlterarAlbum(AlbumAlteradoEvent.de(2L, 3L));
+		pipeline.iniciar();
+		aguardarOcioso();
+
+		assertEquals(List.of(Set.of(1L, 2L, 3L)), consumidor.lotes);
+		assertEquals(0, consumidor.reconstrucoes.get());
+		assertEquals(3.0, registry.get("album.eventos.lote").summary().totalAmount());
+	}
+
+	@Test
+	void filaCheiaDescartaEReconstroi() throws InterruptedException {
+		ConsumidorTeste consumidor = new ConsumidorTeste();
+		pipeline = new PipelineEventos(List.of(consumidor), registry, 2, 50);
+
+		for (long usuario = 1; usuario <= 5; usuario++) {
+			pipeline.aoAlterarAlbum(AlbumAlteradoEvent.de(usuario));
+		}
+		pipeline.iniciar();
+		assertTrue(consumidor.reconstruido.await(5, TimeUnit.SECONDS));
+		aguardarOcioso();
+
+		assertEquals(List.of(Set.of(1L, 2L)), consumidor.lotes);
+		assertEquals(1, consumidor.reconstrucoes.get());
+		assertEquals(3.0, registry.get("album.eventos.descartados").counter().count());
+	}
+
+	private void aguardarOcioso() throws InterruptedException {
+		while (!pipeline.estaOcioso()) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static class ConsumidorTeste implements ConsumidorAlbunsAlterados {
+
+		private final List<Set<Long>> lotes = new CopyOnWriteArrayList<>();
+		private final AtomicInteger reconstrucoes = new AtomicInteger();
+		private final CountDownLatch reconstruido = new CountDownLatch(1);
+
+		@Override
+		public String nome() {
+			return "teste";
+		}
+
+		@Override
+		public void atualizar(Collection<Long> usuarioIds) {
+			lotes.add(Set.copyOf(usuarioIds));
+		}
+
+		@Override
+		public void reconstruir() {
+			reconstrucoes.incrementAndGet();
+			reconstruido.countDown();
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.albumrickandmortyapi.metricas;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Asserção do número de comandos SQL de uma requisição, lido do cabeçalho que o OrcamentoSqlFilter coloca na resposta.
+// Uso: mockMvc.perform(get("/albuns/1")).andExpect(comandosSql(2))
+public final class OrcamentoSql {
+
+	private OrcamentoSql() {
+	}
+
+	public static ResultMatcher comandosSql(int esperados) {
+		return resultado -> {
+			String cabecalho = resultado.getResponse().getHeader(OrcamentoSqlFilter.CABECALHO_COMANDOS);
+			assertNotNull(cabecalho, "Resposta sem o cabeçalho " + OrcamentoSqlFilter.CABECALHO_COMANDOS);
+			assertEquals(esperados, Integer.parseInt(cabecalho), () -> "Comandos SQL em " + resultado.getRequest().getMethod()
+					+ " " + resultado.getRequest().getRequestURI() + " (um N+1 aparece aqui como comandos a mais)");
+		};
+	}
+}
@@ -0,0 +1,139 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.dto.UsuarioDTO;
+import com.albumrickandmortyapi.metricas.ContadorSql;
+import com.albumrickandmortyapi.model.Personagem;
+import com.albumrickandmortyapi.model.Raridade;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import com.albumrickandmortyapi.repository.PersonagemRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Abrir um pacote só insere (ou soma) as figurinhas novas: o custo não pode crescer com o tamanho do álbum.
+// Os comandos SQL são contados pelo ContadorSql (o mesmo do cabeçalho X-Sql-Statements), que inclui o INSERT em lote das
+// pilhas novas feito direto no JDBC. As estatísticas do Hibernate (entidades, coleções) são globais, então nada além da
+// abertura pode usar o banco durante a medição:
+// as rotinas que rodam na subida (reparo, catálogo) e os consumidores dos eventos (índice de trocas, ranking) são mocks.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:abrir-pacote;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"album.pacotes.semente=42" // Pacotes determinísticos: sempre os mesmos sorteios nos dois álbuns
+})
+class AbrirPacoteTest {
+
+	@MockitoBean
+	private ReparoAlbunsService reparoAlbuns;
+	@MockitoBean
+	private SincronizacaoPersonagensService sincronizacaoPersonagens;
+	@MockitoBean(answers = Answers.RETURNS_SMART_NULLS) // nome() não pode ser null: vira a tag das métricas do pipeline
+	private IndiceTrocasService indiceTrocas;
+	@MockitoBean(answers = Answers.RETURNS_SMART_NULLS)
+	private RankingColecionadoresService rankingColecionadores;
+
+	@Autowired
+	private AlbumService albumService;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private CatalogoPersonagensService catalogoPersonagens;
+	@Autowired
+	private PersonagemRepository personagemRepository;
+	@Autowired
+	private AlbumRepository albumRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void abrirPacoteNaoDependeDoTamanhoDoAlbum() {
+		// Dois personagens de status "unknown" (sempre ESPECIAL). Os dois álbuns já têm a pilha do personagem 1,
+		// então os pacotes somam cópias nela e criam a pilha do personagem 2: os dois caminhos da abertura são medidos
+		personagemRepository.save(new Personagem(1L, "Rick Sanchez", "unknown", "Human"));
+		personagemRepository.save(new Personagem(2L, "Morty Smith", "unknown", "Human"));
+		catalogoPersonagens.recarregar();
+
+		Long usuarioPequeno = criarUsuario("pequeno");
+		Long usuarioCheio = criarUsuario("cheio");
+		Long albumPequeno = albumRepository.findByUsuarioId(usuarioPequeno).orElseThrow().getId();
+		Long albumCheio = albumRepository.findByUsuarioId(usuarioCheio).orElseThrow().getId();
+
+		List<Object[]> figurinhas = new ArrayList<>();
+		figurinhas.add(new Object[]{albumPequeno, 1L, "Rick Sanchez", Raridade.ESPECIAL.name()});
+		figurinhas.add(new Object[]{albumCheio, 1L, "Rick Sanchez", Raridade.ESPECIAL.name()});
+		// Mais 10.000 figurinhas no álbum cheio (2.500 personagens x 4 raridades)
+		for (long personagem = 3; personagem <= 2502; personagem++) {
+			for (Raridade raridade : Raridade.values()) {
+				figurinhas.add(new Object[]{albumCheio, personagem, "Personagem " + personagem, raridade.name()});
+			}
+		}
+		jdbcTemplate.batchUpdate("insert into figurinhas (album_id, id_personagem_api, nome_personagem, raridade, quantidade, versao) " +
+				"values (?, ?, ?, ?, 1, 0)", figurinhas);
+
+		SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+		Statistics estatisticas = sessionFactory.getStatistics();
+		estatisticas.setStatisticsEnabled(true);
+
+		// As duas aberturas começam com o cache de segundo nível vazio (a primeira invalidaria a consulta em cache da segunda)
+		sessionFactory.getCache().evictAllRegions();
+		estatisticas.clear();
+		int comandosAlbumPequeno = contarComandos(() -> albumService.abrirPacotes(usuarioPequeno, 2));
+		long entidadesAlbumPequeno = estatisticas.getEntityLoadCount();
+		long colecoesAlbumPequeno = estatisticas.getCollectionFetchCount();
+
+		sessionFactory.getCache().evictAllRegions();
+		estatisticas.clear();
+		int comandosAlbumCheio = contarComandos(() -> albumService.abrirPacotes(usuarioCheio, 2));
+		long entidadesAlbumCheio = estatisticas.getEntityLoadCount();
+		long colecoesAlbumCheio = estatisticas.getCollectionFetchCount();
+
+		// Álbum, pilhas já existentes dos personagens sorteados, INSERT em lote das pilhas novas, UPDATE da pilha somada e do álbum
+		assertEquals(5, comandosAlbumPequeno);
+		assertEquals(comandosAlbumPequeno, comandosAlbumCheio);
+		assertEquals(entidadesAlbumPequeno, entidadesAlbumCheio);
+		assertEquals(0, colecoesAlbumPequeno); // A lista de figurinhas do álbum nunca é carregada
+		assertEquals(0, colecoesAlbumCheio);
+
+		// Os dois caminhos rodaram nos dois álbuns: cópias somadas na pilha que existia e pilha nova criada
+		for (Long albumId : List.of(albumPequeno, albumCheio)) {
+			assertTrue(quantidade(albumId, 1L) > 1, "Nenhuma cópia somada na pilha existente do álbum " + albumId);
+			assertTrue(quantidade(albumId, 2L) > 0, "Nenhuma pilha nova criada no álbum " + albumId);
+			assertEquals(10, quantidade(albumId, 1L) - 1 + quantidade(albumId, 2L)); // 2 pacotes x 5 figurinhas
+		}
+	}
+
+	// Comandos SQL executados pela thread atual durante a operação (a abertura roda inteira nesta thread)
+	private int contarComandos(Runnable operacao) {
+		ContadorSql.Contagem contagem = ContadorSql.iniciar();
+		try {
+			operacao.run();
+		} finally {
+			ContadorSql.encerrar();
+		}
+		return contagem.getComandos();
+	}
+
+	private int quantidade(Long albumId, Long personagem) {
+		return jdbcTemplate.queryForObject("select coalesce(sum(quantidade), 0) from figurinhas where album_id = ? and id_personagem_api = ?",
+				Integer.class, albumId, personagem);
+	}
+
+	private Long criarUsuario(String nome) {
+		UsuarioDTO dto = new UsuarioDTO();
+		dto.setNome(nome);
+		dto.setEmail(nome + "@pacote.com");
+		return usuarioService.criarUsuarioComAlbum(dto).getId();
+	}
+}
@@ -0,0 +1,160 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.dto.PropostaTrocaDTO;
+import com.albumrickandmortyapi.dto.UsuarioDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// O aceite não usa locks no banco: duas propostas com a mesma última cópia aceitas ao mesmo tempo precisam terminar
+// com uma só troca feita, a outra proposta cancelada, nenhuma pilha negativa e os bitmaps dos álbuns batendo com as pilhas.
+// As rotinas da subida (reparo, catálogo) são mocks para não alterarem os álbuns durante o teste.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:aceitar-troca;MODE=MySQL;DB_CLOSE_DELAY=-1")
+class AceitarTrocaConcorrenteTest {
+
+	private static final int RODADAS = 10; // Cada rodada usa usuários novos; mais rodadas, mais intercalações diferentes
+
+	@MockitoBean
+	private ReparoAlbunsService reparoAlbuns;
+	@MockitoBean
+	private SincronizacaoPersonagensService sincronizacaoPersonagens;
+
+	@Autowired
+	private TrocaService trocaService;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void mesmaUltimaCopiaAceitaDuasVezesAoMesmoTempo() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for (int rodada = 0; rodada < RODADAS; rodada++) {
+				rodada(executor, rodada);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void rodada(ExecutorService executor, int rodada) throws Exception {
+		// O ofertante tem uma única cópia do personagem 1 e oferece a mesma cópia a dois receptores
+		Long ofertante = criarUsuario("ofertante" + rodada);
+		Long receptorA = criarUsuario("receptorA" + rodada);
+		Long receptorB = criarUsuario("receptorB" + rodada);
+		Long ultimaCopia = inserirFigurinha(ofertante, 1L);
+		Long propostaA = propor(ofertante, ultimaCopia, receptorA, inserirFigurinha(receptorA, 2L));
+		Long propostaB = propor(ofertante, ultimaCopia, receptorB, inserirFigurinha(receptorB, 3L));
+
+		// Os dois aceites saem juntos, cada um na sua thread
+		CountDownLatch largada = new CountDownLatch(1);
+		Future<Boolean> aceiteA = executor.submit(() -> aceitar(largada, propostaA, receptorA));
+		Future<Boolean> aceiteB = executor.submit(() -> aceitar(largada, propostaB, receptorB));
+		largada.countDown();
+		boolean aceitouA = aceiteA.get();
+		boolean aceitouB = aceiteB.get();
+
+		// Exatamente um aceite passou; a outra proposta foi cancelada (a pilha ficou vazia) e o aceite dela falhou
+		assertTrue(aceitouA ^ aceitouB, "Rodada " + rodada + ": aceites com sucesso A=" + aceitouA + ", B=" + aceitouB);
+		assertEquals(aceitouA ? "ACEITA" : "CANCELADA", status(propostaA));
+		assertEquals(aceitouB ? "ACEITA" : "CANCELADA", status(propostaB));
+
+		// A cópia saiu uma vez só: nenhuma pilha negativa e o total de cópias dos três álbuns não mudou
+		List<Long> usuarios = List.of(ofertante, receptorA, receptorB);
+		int total = 0;
+		for (Long usuario : usuarios) {
+			for (Map<String, Object> pilha : pilhas(usuario)) {
+				int quantidade = ((Number) pilha.get("quantidade")).intValue();
+				assertTrue(quantidade >= 0, "Pilha negativa no álbum do usuário " + usuario);
+				total += quantidade;
+			}
+		}
+		assertEquals(3, total);
+		assertEquals(0, quantidade(ofertante, 1L));
+		assertEquals(1, quantidade(aceitouA ? receptorA : receptorB, 1L));
+
+		// Bitmap e contador de personagens distintos de cada álbum iguais aos personagens com cópias nas pilhas
+		for (Long usuario : usuarios) {
+			BitSet esperado = new BitSet();
+			pilhas(usuario).stream()
+					.filter(pilha -> ((Number) pilha.get("quantidade")).intValue() > 0)
+					.forEach(pilha -> esperado.set(((Number) pilha.get("id_personagem_api")).intValue()));
+			Map<String, Object> album = jdbcTemplate.queryForMap(
+					"select personagens_possuidos, personagens_distintos from albums where usuario_id = ?", usuario);
+			byte[] bitmap = (byte[]) album.get("personagens_possuidos");
+			assertEquals(esperado, bitmap == null ? new BitSet() : BitSet.valueOf(bitmap), "Bitmap do usuário " + usuario);
+			assertEquals(esperado.cardinality(), ((Number) album.get("personagens_distintos")).intValue(), "Contador do usuário " + usuario);
+		}
+	}
+
+	private boolean aceitar(CountDownLatch largada, Long propostaId, Long receptor) throws InterruptedException {
+		largada.await();
+		try {
+			trocaService.aceitarTroca(propostaId, receptor);
+			return true;
+		} catch (RuntimeException e) {
+			return false; // Proposta cancelada, cópia indisponível ou conflitos em todas as tentativas
+		}
+	}
+
+	private Long criarUsuario(String nome) {
+		UsuarioDTO dto = new UsuarioDTO();
+		dto.setNome(nome);
+		dto.setEmail(nome + "@troca.com");
+		return usuarioService.criarUsuarioComAlbum(dto).getId();
+	}
+
+	// Uma cópia COMUM do personagem, inserida direto no banco, com o bitmap do álbum já marcando o personagem
+	private Long inserirFigurinha(Long usuarioId, Long personagem) {
+		Long albumId = jdbcTemplate.queryForObject("select id from albums where usuario_id = ?", Long.class, usuarioId);
+		jdbcTemplate.update("insert into figurinhas (album_id, id_personagem_api, nome_personagem, raridade, quantidade, versao) " +
+				"values (?, ?, ?, 'COMUM', 1, 0)", albumId, personagem, "Personagem " + personagem);
+		BitSet bitmap = new BitSet();
+		bitmap.set(personagem.intValue());
+		jdbcTemplate.update("update albums set personagens_possuidos = ?, personagens_distintos = 1 where id = ?", bitmap.toByteArray(), albumId);
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions(); // O álbum em cache ainda tem o bitmap antigo
+		return jdbcTemplate.queryForObject("select id from figurinhas where album_id = ? and id_personagem_api = ?", Long.class, albumId, personagem);
+	}
+
+	private Long propor(Long ofertante, Long figurinhaOferecida, Long receptor, Long figurinhaDesejada) {
+		PropostaTrocaDTO dto = new PropostaTrocaDTO();
+		dto.setOfertanteId(ofertante);
+		dto.setFigurinhaOferecidaId(figurinhaOferecida);
+		dto.setReceptorId(receptor);
+		dto.setFigurinhaDesejadaId(figurinhaDesejada);
+		return trocaService.proporTroca(dto).getId();
+	}
+
+	private String status(Long propostaId) {
+		return jdbcTemplate.queryForObject("select status from proposta_troca where id = ?", String.class, propostaId);
+	}
+
+	private List<Map<String, Object>> pilhas(Long usuarioId) {
+		return new ArrayList<>(jdbcTemplate.queryForList("select f.id_personagem_api, f.quantidade from figurinhas f " +
+				"join albums a on a.id = f.album_id where a.usuario_id = ?", usuarioId));
+	}
+
+	private int quantidade(Long usuarioId, Long personagem) {
+		return jdbcTemplate.queryForObject("select coalesce(sum(f.quantidade), 0) from figurinhas f join albums a on a.id = f.album_id " +
+				"where a.usuario_id = ? and f.id_personagem_api = ?", Integer.class, usuarioId, personagem);
+	}
+}
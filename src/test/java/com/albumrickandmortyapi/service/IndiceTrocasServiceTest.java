@@ -0,0 +1,90 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.dto.SugestaoTrocaDTO;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import com.albumrickandmortyapi.repository.FigurinhaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Leituras fora de ordem não podem desfazer um estado mais novo, e usuários excluídos saem do índice
+class IndiceTrocasServiceTest {
+
+	private final AlbumRepository albumRepository = mock(AlbumRepository.class);
+	private final FigurinhaRepository figurinhaRepository = mock(FigurinhaRepository.class);
+	private final IndiceTrocasService indice = new IndiceTrocasService(albumRepository, figurinhaRepository);
+
+	// O "banco": versão do álbum de cada usuário e as linhas (usuário, personagem, quantidade)
+	private final Map<Long, Long> versoes = new HashMap<>();
+	private final List<Object[]> totais = new ArrayList<>();
+
+	@BeforeEach
+	void configurarBanco() {
+		when(albumRepository.findVersoesByUsuarioIds(anyCollection())).thenAnswer(chamada -> {
+			Collection<?> ids = chamada.getArgument(0);
+			return versoes.entrySet().stream()
+					.filter(versao -> ids.contains(versao.getKey()))
+					.map(versao -> new Object[]{versao.getKey(), versao.getValue()})
+					.toList();
+		});
+		when(figurinhaRepository.somarQuantidadesPorPersonagemDosUsuarios(anyCollection())).thenAnswer(chamada -> {
+			Collection<?> ids = chamada.getArgument(0);
+			return totais.stream().filter(linha -> ids.contains(linha[0])).toList();
+		});
+	}
+
+	@Test
+	void leituraVelhaNaoDesfazEstadoNovo() {
+		gravar(1L, 1, 10L, 2L); // Usuário 1 tem o personagem 10 repetido
+		gravar(2L, 1, 20L, 2L); // Usuário 2 tem o personagem 20 repetido
+		indice.atualizar(List.of(1L, 2L));
+		assertEquals(List.of(2L), parceiros(1L));
+
+		// O usuário 2 trocou a repetida (versão 2); depois chega uma leitura atrasada da versão 1
+		gravar(2L, 2, 20L, 1L);
+		indice.atualizar(List.of(2L));
+		gravar(2L, 1, 20L, 2L);
+		indice.atualizar(List.of(2L));
+
+		assertEquals(List.of(), parceiros(1L));
+	}
+
+	@Test
+	void usuarioExcluidoSaiEPosicaoEReaproveitada() {
+		gravar(1L, 1, 10L, 2L);
+		gravar(2L, 1, 20L, 2L);
+		indice.atualizar(List.of(1L, 2L));
+
+		versoes.remove(2L); // Usuário 2 excluído
+		totais.removeIf(linha -> linha[0].equals(2L));
+		indice.atualizar(List.of(2L));
+		assertTrue(parceiros(1L).isEmpty());
+
+		gravar(3L, 1, 30L, 2L); // O próximo usuário ocupa a posição livre
+		indice.atualizar(List.of(3L));
+		assertEquals(List.of(3L), parceiros(1L));
+		assertEquals(List.of(1L), parceiros(3L));
+	}
+
+	// Substitui as figurinhas do usuário por um único personagem com a quantidade informada
+	private void gravar(Long usuarioId, long versao, Long personagem, Long quantidade) {
+		versoes.put(usuarioId, versao);
+		totais.removeIf(linha -> linha[0].equals(usuarioId));
+		totais.add(new Object[]{usuarioId, personagem, quantidade});
+	}
+
+	private List<Long> parceiros(Long usuarioId) {
+		return indice.sugerirParceiros(usuarioId, 10).stream().map(SugestaoTrocaDTO::getUsuarioId).toList();
+	}
+}
@@ -0,0 +1,65 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.model.Raridade;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Com semente, os pacotes só dependem de semente + usuário + versão do álbum; as tabelas de alias seguem os pesos configurados
+class PackGeneratorTest {
+
+	private static final int TOTAL_PERSONAGENS = 826;
+
+	@Test
+	void mesmaSementeUsuarioEVersaoGeramOsMesmosPacotes() {
+		// Dois geradores separados, como em duas execuções do teste de carga
+		List<String> primeiraExecucao = sortear(new PackGenerator(new ConfiguracaoPacotes(42L, null, null)), 7L, 3L);
+		List<String> segundaExecucao = sortear(new PackGenerator(new ConfiguracaoPacotes(42L, null, null)), 7L, 3L);
+		assertEquals(primeiraExecucao, segundaExecucao);
+
+		// Outra versão do álbum (o usuário já abriu outro pacote): outros sorteios
+		assertNotEquals(primeiraExecucao, sortear(new PackGenerator(new ConfiguracaoPacotes(42L, null, null)), 7L, 4L));
+	}
+
+	@Test
+	void tabelaAliasSegueOsPesos() {
+		double[] pesos = {0, 1, 3, 6};
+		PackGenerator.TabelaAlias tabela = PackGenerator.TabelaAlias.montar(pesos);
+		RandomGenerator gerador = new SplittableRandom(1);
+
+		int sorteios = 200_000;
+		int[] contagem = new int[pesos.length];
+		for (int i = 0; i < sorteios; i++) {
+			contagem[tabela.sortear(gerador)]++;
+		}
+
+		assertEquals(0, contagem[0]); // Peso zero nunca sai
+		for (int i = 1; i < pesos.length; i++) {
+			assertEquals(pesos[i] / 10, (double) contagem[i] / sorteios, 0.01, "Frequência da posição " + i);
+		}
+	}
+
+	@Test
+	void raridadesSemAChaveOutrosSaoRejeitadas() {
+		Map<String, Map<Raridade, Integer>> raridades = Map.of("alive", Map.of(Raridade.COMUM, 1));
+		assertThrows(IllegalArgumentException.class, () -> new ConfiguracaoPacotes(null, raridades, null));
+	}
+
+	// Dez pacotes de uma abertura: personagem e raridade de cada figurinha
+	private List<String> sortear(PackGenerator packGenerator, Long usuarioId, long versaoAlbum) {
+		RandomGenerator sorteio = packGenerator.novoSorteio(usuarioId, versaoAlbum);
+		List<String> figurinhas = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			figurinhas.add(packGenerator.sortearPersonagem(sorteio, TOTAL_PERSONAGENS) + ":" + packGenerator.sortearRaridade(sorteio, "Alive"));
+		}
+		return figurinhas;
+	}
+}
@@ -0,0 +1,103 @@
+package com.albumrickandmortyapi.service;
+
+import com.albumrickandmortyapi.dto.PosicaoRankingDTO;
+import com.albumrickandmortyapi.repository.AlbumRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// O ranking incremental precisa dar as mesmas posições que ordenar todos os álbuns do zero
+class RankingColecionadoresServiceTest {
+
+	private final AlbumRepository albumRepository = mock(AlbumRepository.class);
+	private final CatalogoPersonagensService catalogo = mock(CatalogoPersonagensService.class);
+	private final RankingColecionadoresService ranking = new RankingColecionadoresService(albumRepository, catalogo);
+
+	// Linhas (usuário, álbum, personagens distintos, versão) que o "banco" devolve
+	private final List<Object[]> albuns = new ArrayList<>();
+
+	@BeforeEach
+	void configurarBanco() {
+		when(catalogo.getTotalPersonagens()).thenReturn(200);
+		when(albumRepository.findRankingByUsuarioIds(anyCollection())).thenAnswer(chamada -> {
+			Collection<?> ids = chamada.getArgument(0);
+			return albuns.stream().filter(linha -> ids.contains(linha[0])).toList();
+		});
+		when(albumRepository.findRankingAposUsuarioId(anyLong(), any(Pageable.class))).thenAnswer(chamada -> {
+			long aposId = chamada.getArgument(0);
+			return albuns.stream().filter(linha -> (Long) linha[0] > aposId).toList();
+		});
+	}
+
+	@Test
+	void empatesDividemAPosicao() {
+		gravar(1L, 10, 1);
+		gravar(2L, 50, 1);
+		gravar(3L, 10, 1);
+		gravar(4L, 30, 1);
+		ranking.reconstruir();
+
+		List<PosicaoRankingDTO> top = ranking.listarTop(10);
+		assertEquals(List.of(2L, 4L, 1L, 3L), top.stream().map(PosicaoRankingDTO::getUsuarioId).toList());
+		assertEquals(List.of(1, 2, 3, 3), top.stream().map(PosicaoRankingDTO::getPosicao).toList());
+		assertEquals(25.0, top.get(0).getProgressoPercentual());
+
+		// A posição de cada um (árvore de Fenwick) bate com a do top
+		top.forEach(posicao -> assertEquals(posicao.getPosicao(), ranking.buscarPosicao(posicao.getUsuarioId()).orElseThrow().getPosicao()));
+		assertEquals(2, ranking.listarTop(2).size());
+	}
+
+	@Test
+	void alteracoesMovemOUsuario() {
+		gravar(1L, 10, 1);
+		gravar(2L, 20, 1);
+		ranking.reconstruir();
+
+		gravar(1L, 25, 2); // Abriu pacotes e passou o usuário 2
+		ranking.atualizar(List.of(1L));
+		assertEquals(1, ranking.buscarPosicao(1L).orElseThrow().getPosicao());
+		assertEquals(2, ranking.buscarPosicao(2L).orElseThrow().getPosicao());
+
+		// Uma leitura velha que chega atrasada (versão menor) não desfaz a mais nova
+		albuns.add(new Object[]{1L, 1L, 10, 1L});
+		albuns.removeIf(linha -> linha[0].equals(1L) && ((Number) linha[3]).longValue() == 2L);
+		ranking.atualizar(List.of(1L));
+		assertEquals(25, ranking.buscarPosicao(1L).orElseThrow().getPersonagensDistintos());
+
+		albuns.removeIf(linha -> linha[0].equals(2L)); // Usuário excluído
+		ranking.atualizar(List.of(2L));
+		assertTrue(ranking.buscarPosicao(2L).isEmpty());
+		assertEquals(List.of(1L), ranking.listarTop(10).stream().map(PosicaoRankingDTO::getUsuarioId).toList());
+	}
+
+	@Test
+	void reconstrucaoTiraQuemSumiuSemEvento() {
+		gravar(1L, 10, 1);
+		gravar(2L, 20, 1);
+		ranking.reconstruir();
+
+		albuns.removeIf(linha -> linha[0].equals(1L));
+		ranking.reconstruir();
+
+		assertTrue(ranking.buscarPosicao(1L).isEmpty());
+		assertEquals(1, ranking.buscarPosicao(2L).orElseThrow().getPosicao());
+	}
+
+	// O ID do álbum é o mesmo do usuário nos testes
+	private void gravar(Long usuarioId, int personagens, long versao) {
+		albuns.removeIf(linha -> linha[0].equals(usuarioId));
+		albuns.add(new Object[]{usuarioId, usuarioId, personagens, versao});
+	}
+}